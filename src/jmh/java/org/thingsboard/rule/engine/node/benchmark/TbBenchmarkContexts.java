@@ -0,0 +1,89 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.benchmark;
+
+import org.openjdk.jmh.infra.Blackhole;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+
+/**
+ * {@link TbContext} stub for benchmarks. Messages routed by a node are passed to
+ * the {@link Blackhole}; unlike a Mockito mock, nothing is recorded, so the stub
+ * adds only the proxy argument array to the measured allocation rate.
+ */
+final class TbBenchmarkContexts {
+
+    private TbBenchmarkContexts() {
+    }
+
+    static TbContext create(Blackhole blackhole) {
+        RuleNodeId selfId = new RuleNodeId(UUID.randomUUID());
+        return (TbContext) Proxy.newProxyInstance(TbContext.class.getClassLoader(), new Class<?>[]{TbContext.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getSelfId":
+                            return selfId;
+                        case "tellSuccess":
+                        case "tellNext":
+                        case "tellFailure":
+                        case "ack":
+                        case "enqueueForTellNext":
+                            blackhole.consume(args[0]);
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "TbBenchmarkContext";
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0.0d;
+        }
+        if (type == float.class) {
+            return 0.0f;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.benchmark;
+
+import javax.net.ServerSocketFactory;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * Loopback server which writes back every byte it receives, plain or over TLS.
+ * Client certificates are requested but not verified, so the client side of the
+ * handshake including its private key is exercised.
+ */
+final class TbEchoServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private volatile boolean closed;
+
+    private TbEchoServer(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+        Thread acceptor = new Thread(this::acceptLoop, "tcp-echo-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    static TbEchoServer plain() throws IOException {
+        return new TbEchoServer(ServerSocketFactory.getDefault().createServerSocket(0, 128, InetAddress.getLoopbackAddress()));
+    }
+
+    static TbEchoServer tls() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(null, null);
+        Certificate cert = CertificateFactory.getInstance("X.509")
+                .generateCertificate(TbEchoServer.class.getResourceAsStream("/tls/server-cert.pem"));
+        keyStore.setKeyEntry("server", loadPkcs8RsaKey(resource("tls/server-key.pem")), new char[0], new Certificate[]{cert});
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore, new char[0]);
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(kmf.getKeyManagers(), new TrustManager[]{new TrustAllManager()}, null);
+        SSLServerSocket serverSocket = (SSLServerSocket) sslContext.getServerSocketFactory()
+                .createServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        serverSocket.setWantClientAuth(true);
+        return new TbEchoServer(serverSocket);
+    }
+
+    static String resource(String name) {
+        try (InputStream in = TbEchoServer.class.getResourceAsStream("/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Missing resource: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread worker = new Thread(() -> echo(socket), "tcp-echo-worker");
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private static void echo(Socket socket) {
+        byte[] buffer = new byte[8192];
+        try (socket) {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // client went away
+        }
+    }
+
+    private static PrivateKey loadPkcs8RsaKey(String pem) throws Exception {
+        String base64 = pem.replaceAll("-----(BEGIN|END) PRIVATE KEY-----", "").replaceAll("\\s", "");
+        return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(base64)));
+    }
+
+    private static class TrustAllManager implements X509TrustManager {
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.rule.engine.node.enrichment.TbGetSumIntoMetadata;
+import org.thingsboard.rule.engine.node.enrichment.TbGetSumIntoMetadataConfiguration;
+import org.thingsboard.rule.engine.node.filter.TbChangeFilterNode;
+import org.thingsboard.rule.engine.node.filter.TbChangeFilterNodeConfiguration;
+import org.thingsboard.rule.engine.node.filter.TbKeyFilterNode;
+import org.thingsboard.rule.engine.node.filter.TbKeyFilterNodeConfiguration;
+import org.thingsboard.rule.engine.node.transform.TbAggregateTelemetryNode;
+import org.thingsboard.rule.engine.node.transform.TbAggregateTelemetryNodeConfiguration;
+import org.thingsboard.rule.engine.node.transform.TbCalculateSumNode;
+import org.thingsboard.rule.engine.node.transform.TbCalculateSumNodeConfiguration;
+import org.thingsboard.rule.engine.node.transform.TbWindowAggregateNode;
+import org.thingsboard.rule.engine.node.transform.TbWindowAggregateNodeConfiguration;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.thingsboard.server.common.data.msg.TbMsgType.POST_TELEMETRY_REQUEST;
+
+/**
+ * Payload processing nodes over messages with a growing number of fields. Half
+ * of the fields match the {@code temperature} prefix; the filter looks for a key
+ * that is absent, so every field is visited. The multi-condition filter also
+ * requires an absent key, so it cannot stop early either. The change filter
+ * either sees the same message again or alternates between two messages that
+ * differ in every field.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TbPayloadNodesBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Param({"10", "100", "1000"})
+    int fields;
+
+    TbContext ctx;
+    TbMsg msg;
+    TbMsg[] changingMsgs;
+    int changingIdx;
+    TbKeyFilterNode keyFilterNode;
+    TbKeyFilterNode keyFilterConditionsNode;
+    TbChangeFilterNode changeFilterNode;
+    TbCalculateSumNode calculateSumNode;
+    TbGetSumIntoMetadata getSumIntoMetadataNode;
+    TbAggregateTelemetryNode aggregateTelemetryNode;
+    TbWindowAggregateNode windowAggregateNode;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) throws TbNodeException {
+        ctx = TbBenchmarkContexts.create(blackhole);
+        msg = TbMsg.newMsg()
+                .type(POST_TELEMETRY_REQUEST)
+                .originator(new DeviceId(UUID.randomUUID()))
+                .data(payload(fields))
+                .metaData(new TbMsgMetaData())
+                .build();
+        changingMsgs = new TbMsg[]{msg, msg.transform().data(payload(fields, 1.0)).build()};
+
+        var keyFilterConfig = new TbKeyFilterNodeConfiguration().defaultConfiguration();
+        keyFilterConfig.setKey("absent");
+        keyFilterNode = new TbKeyFilterNode();
+        keyFilterNode.init(ctx, new TbNodeConfiguration(MAPPER.valueToTree(keyFilterConfig)));
+
+        var conditionsConfig = new TbKeyFilterNodeConfiguration().defaultConfiguration();
+        conditionsConfig.setConditions(List.of(
+                condition("temperature0", "GE", "0"),
+                condition("humidity1", "LT", "1000"),
+                condition("/temperature8", "NE", "0"),
+                condition("humidity9", "MATCHES", "\\d+"),
+                condition("absent", "NOT_EXISTS", null)));
+        keyFilterConditionsNode = new TbKeyFilterNode();
+        keyFilterConditionsNode.init(ctx, new TbNodeConfiguration(MAPPER.valueToTree(conditionsConfig)));
+
+        var changeFilterConfig = new TbChangeFilterNodeConfiguration().defaultConfiguration();
+        changeFilterConfig.setJmxMetrics(false);
+        changeFilterNode = new TbChangeFilterNode();
+        changeFilterNode.init(ctx, new TbNodeConfiguration(MAPPER.valueToTree(changeFilterConfig)));
+
+        calculateSumNode = new TbCalculateSumNode();
+        calculateSumNode.init(ctx, new TbNodeConfiguration(
+                MAPPER.valueToTree(new TbCalculateSumNodeConfiguration().defaultConfiguration())));
+
+        getSumIntoMetadataNode = new TbGetSumIntoMetadata();
+        getSumIntoMetadataNode.init(ctx, new TbNodeConfiguration(
+                MAPPER.valueToTree(new TbGetSumIntoMetadataConfiguration().defaultConfiguration())));
+
+        aggregateTelemetryNode = new TbAggregateTelemetryNode();
+        aggregateTelemetryNode.init(ctx, new TbNodeConfiguration(
+                MAPPER.valueToTree(new TbAggregateTelemetryNodeConfiguration().defaultConfiguration())));
+
+        windowAggregateNode = new TbWindowAggregateNode();
+        windowAggregateNode.init(ctx, new TbNodeConfiguration(
+                MAPPER.valueToTree(new TbWindowAggregateNodeConfiguration().defaultConfiguration())));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        windowAggregateNode.destroy();
+        changeFilterNode.destroy();
+    }
+
+    @Benchmark
+    public void keyFilter() {
+        keyFilterNode.onMsg(ctx, msg);
+    }
+
+    @Benchmark
+    public void keyFilterConditions() {
+        keyFilterConditionsNode.onMsg(ctx, msg);
+    }
+
+    @Benchmark
+    public void changeFilterUnchanged() {
+        changeFilterNode.onMsg(ctx, msg);
+    }
+
+    @Benchmark
+    public void changeFilterChanged() {
+        changeFilterNode.onMsg(ctx, changingMsgs[changingIdx++ & 1]);
+    }
+
+    @Benchmark
+    public void calculateSum() {
+        calculateSumNode.onMsg(ctx, msg);
+    }
+
+    @Benchmark
+    public void getSumIntoMetadata() {
+        getSumIntoMetadataNode.onMsg(ctx, msg);
+    }
+
+    @Benchmark
+    public void aggregateTelemetry() {
+        aggregateTelemetryNode.onMsg(ctx, msg);
+    }
+
+    @Benchmark
+    public void windowAggregate() {
+        windowAggregateNode.onMsg(ctx, msg);
+    }
+
+    static String payload(int fields) {
+        return payload(fields, 0.0);
+    }
+
+    static String payload(int fields, double offset) {
+        var data = MAPPER.createObjectNode();
+        for (int i = 0; i < fields; i++) {
+            if (i % 2 == 0) {
+                data.put("temperature" + i, 20.0 + i * 0.1 + offset);
+            } else {
+                data.put("humidity" + i, 40 + i + (int) offset);
+            }
+        }
+        return data.toString();
+    }
+
+    private static TbKeyFilterNodeConfiguration.Condition condition(String path, String operator, String value) {
+        var condition = new TbKeyFilterNodeConfiguration.Condition();
+        condition.setPath(path);
+        condition.setOperator(operator);
+        condition.setValue(value);
+        return condition;
+    }
+
+}
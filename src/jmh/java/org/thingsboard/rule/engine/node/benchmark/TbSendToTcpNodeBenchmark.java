@@ -0,0 +1,133 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.node.external.TbSendToTcpNode;
+import org.thingsboard.rule.engine.node.external.TbSendToTcpNodeConfiguration;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.thingsboard.server.common.data.msg.TbMsgType.POST_TELEMETRY_REQUEST;
+
+/**
+ * Synchronous request/response round trips of {@link TbSendToTcpNode} against a
+ * loopback echo server. TLS variants use a client certificate whose private key
+ * is given in each supported PEM format. Without pooling every request pays for
+ * the connect and, for TLS, the full handshake.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TbSendToTcpNodeBenchmark {
+
+    public enum Transport {
+        PLAIN(null, null),
+        TLS_PKCS8_RSA("tls/client-rsa-cert.pem", "tls/client-rsa-pkcs8.pem"),
+        TLS_PKCS1_RSA("tls/client-rsa-cert.pem", "tls/client-rsa-pkcs1.pem"),
+        TLS_SEC1_EC("tls/client-ec-cert.pem", "tls/client-ec-sec1.pem");
+
+        private final String certificate;
+        private final String privateKey;
+
+        Transport(String certificate, String privateKey) {
+            this.certificate = certificate;
+            this.privateKey = privateKey;
+        }
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Param
+    Transport transport;
+
+    @Param({"false", "true"})
+    boolean connectionPooling;
+
+    TbEchoServer server;
+    TbContext ctx;
+    TbMsg msg;
+    TbSendToTcpNode node;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) throws Exception {
+        boolean tls = transport != Transport.PLAIN;
+        server = tls ? TbEchoServer.tls() : TbEchoServer.plain();
+        ctx = TbBenchmarkContexts.create(blackhole);
+
+        var config = new TbSendToTcpNodeConfiguration().defaultConfiguration();
+        config.setConnectionPooling(connectionPooling);
+        config.getFraming().setType("DELIMITER");
+        config.getFraming().setDelimiter("0x0A");
+        var metaData = new TbMsgMetaData();
+        metaData.putValue("tcpHost", "127.0.0.1");
+        metaData.putValue("tcpPort", Integer.toString(server.getPort()));
+        if (tls) {
+            config.setTls(true);
+            config.getTlsConfig().setCaCertificateKey("${caPem}");
+            config.getTlsConfig().setCertificateKey("${certPem}");
+            config.getTlsConfig().setPrivateKeyKey("${keyPem}");
+            config.getTlsConfig().setVerifyServerCertificate(true);
+            metaData.putValue("caPem", TbEchoServer.resource("tls/server-cert.pem"));
+            metaData.putValue("certPem", TbEchoServer.resource(transport.certificate));
+            metaData.putValue("keyPem", TbEchoServer.resource(transport.privateKey));
+        }
+        node = new TbSendToTcpNode();
+        node.init(ctx, new TbNodeConfiguration(MAPPER.valueToTree(config)));
+
+        msg = TbMsg.newMsg()
+                .type(POST_TELEMETRY_REQUEST)
+                .originator(new DeviceId(UUID.randomUUID()))
+                .data("{\"payload\":\"{\\\"temperature\\\":22.5,\\\"humidity\\\":40}\\n\"}")
+                .metaData(metaData)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        node.destroy();
+        server.close();
+    }
+
+    @Benchmark
+    public void sendRequest() {
+        node.onMsg(ctx, msg);
+    }
+
+}
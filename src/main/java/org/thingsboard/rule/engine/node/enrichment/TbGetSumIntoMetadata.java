@@ -15,19 +15,16 @@
  */
 package org.thingsboard.rule.engine.node.enrichment;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.rule.engine.api.RuleNode;
 import org.thingsboard.rule.engine.api.TbContext;
 import org.thingsboard.rule.engine.api.TbNode;
 import org.thingsboard.rule.engine.api.TbNodeConfiguration;
 import org.thingsboard.rule.engine.api.TbNodeException;
 import org.thingsboard.rule.engine.api.util.TbNodeUtils;
+import org.thingsboard.rule.engine.node.util.TbJsonFieldScanner;
 import org.thingsboard.server.common.data.plugin.ComponentType;
 import org.thingsboard.server.common.msg.TbMsg;
 
-import java.util.Iterator;
-
 import static org.thingsboard.server.common.data.msg.TbNodeConnectionType.SUCCESS;
 
 @RuleNode(
@@ -53,19 +50,9 @@ public class TbGetSumIntoMetadata implements TbNode {
 
     @Override
     public void onMsg(TbContext ctx, TbMsg msg) {
-        double sum = 0;
-        boolean hasRecords = false;
-        JsonNode data = JacksonUtil.toJsonNode(msg.getData());
-        Iterator<String> iterator = data.fieldNames();
-        while (iterator.hasNext()) {
-            String field = iterator.next();
-            if (field.startsWith(inputKey)) {
-                sum += data.get(field).asDouble();
-                hasRecords = true;
-            }
-        }
-        if (hasRecords) {
-            msg.getMetaData().putValue(outputKey, Double.toString(sum));
+        TbJsonFieldScanner.PrefixSum prefixSum = TbJsonFieldScanner.sumByPrefix(msg.getData(), inputKey);
+        if (prefixSum.getCount() > 0) {
+            msg.getMetaData().putValue(outputKey, Double.toString(prefixSum.getSum()));
             ctx.tellNext(msg, SUCCESS);
         } else {
             ctx.tellFailure(msg, new Exception("Message doesn't contains the Input Key: " + inputKey));
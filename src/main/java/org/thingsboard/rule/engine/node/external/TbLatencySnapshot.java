@@ -0,0 +1,71 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+/**
+ * Point in time view of a {@link TbLatencyHistogram}, in microseconds. Exposed
+ * over JMX as composite data.
+ */
+public class TbLatencySnapshot {
+
+    private final long count;
+    private final double meanUs;
+    private final double p50Us;
+    private final double p90Us;
+    private final double p99Us;
+    private final double p999Us;
+    private final double maxUs;
+
+    public TbLatencySnapshot(long count, double meanUs, double p50Us, double p90Us, double p99Us, double p999Us,
+            double maxUs) {
+        this.count = count;
+        this.meanUs = meanUs;
+        this.p50Us = p50Us;
+        this.p90Us = p90Us;
+        this.p99Us = p99Us;
+        this.p999Us = p999Us;
+        this.maxUs = maxUs;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanUs() {
+        return meanUs;
+    }
+
+    public double getP50Us() {
+        return p50Us;
+    }
+
+    public double getP90Us() {
+        return p90Us;
+    }
+
+    public double getP99Us() {
+        return p99Us;
+    }
+
+    public double getP999Us() {
+        return p999Us;
+    }
+
+    public double getMaxUs() {
+        return maxUs;
+    }
+
+}
@@ -15,15 +15,28 @@
  */
 package org.thingsboard.rule.engine.node.external;
 
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.rule.engine.api.RuleNode;
 import org.thingsboard.rule.engine.api.TbContext;
 import org.thingsboard.rule.engine.api.TbNode;
 import org.thingsboard.rule.engine.api.TbNodeConfiguration;
 import org.thingsboard.rule.engine.api.TbNodeException;
 import org.thingsboard.rule.engine.api.util.TbNodeUtils;
+import org.thingsboard.rule.engine.node.util.TbMsgTemplate;
+import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
 import org.thingsboard.server.common.data.plugin.ComponentType;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.TbMsgDataType;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -33,17 +46,43 @@ import lombok.extern.slf4j.Slf4j;
  * Created by Kalaivanan S on 11-July-2025.
  */
 @Slf4j
-@RuleNode(type = ComponentType.EXTERNAL, name = "tcp request", configClazz = TbSendToTcpNodeConfiguration.class, nodeDescription = "Send message data to a TCP endpoint. Payload data type can be one of TEXT, JSON or BINARY.", nodeDetails = "v1.0.0: Reads target host, port, and TLS/PEM configuration from metadata or message using templatized keys <code>${metadata_key}</code>, <code>$[message_key]</code>. The message data must contain a <code>payload</code> key (e.g., <code>{\"payload\":...}</code). The value of 'payload' is sent as the TCP payload. Supports both plain TCP and TLS (with trust credentials shall be passed as part of the message data or metadata).", uiResources = {
-        "static/rulenode/custom-nodes-config.js" }, configDirective = "tbExternalNodeSendToTcpConfig", icon = "call_made")
+@RuleNode(type = ComponentType.EXTERNAL, name = "tcp request", configClazz = TbSendToTcpNodeConfiguration.class, nodeDescription = "Send message data to a TCP endpoint. Payload data type can be one of TEXT, JSON or BINARY.", nodeDetails = "v1.0.0: Reads target host, port, and TLS/PEM configuration from metadata or message using templatized keys <code>${metadata_key}</code>, <code>$[message_key]</code>. The message data must contain a <code>payload</code> key (e.g., <code>{\"payload\":...}</code). The value of 'payload' is sent as the TCP payload. Supports both plain TCP and TLS (with trust credentials shall be passed as part of the message data or metadata). An optional response decoder turns binary fields or delimited text columns of the response into telemetry JSON.", uiResources = {
+        "static/rulenode/custom-nodes-config.js" }, relationTypes = { TbNodeConnectionType.SUCCESS, TbNodeConnectionType.FAILURE,
+                TbSendToTcpNode.CIRCUIT_OPEN }, configDirective = "tbExternalNodeSendToTcpConfig", icon = "call_made")
 public class TbSendToTcpNode implements TbNode {
 
+    static final String CIRCUIT_OPEN = "Circuit Open";
+
     private TbSendToTcpNodeConfiguration config;
-    private String hostKey;
-    private String portKey;
+    private TbMsgTemplate hostTemplate;
+    private TbMsgTemplate portTemplate;
+    // -1 when the port is resolved per message
+    private int constantPort;
     private boolean tls;
-    private TbSendToTcpNodeConfiguration.TlsConfig tlsConfig;
-    private String payloadType;
-    private String responseType;
+    private TbMsgTemplate caTemplate;
+    private TbMsgTemplate certTemplate;
+    private TbMsgTemplate keyTemplate;
+    private TbMsgTemplate passphraseTemplate;
+    private boolean verifyServerCert;
+    // fingerprint of the TLS material when none of it depends on the message
+    private String constantTlsIdentity;
+    private TbMsgDataType payloadDataType;
+    private TbMsgDataType responseDataType;
+    private TbTcpResponseDecoder responseDecoder;
+    private int connectTimeout;
+    private int readTimeout;
+    private ExecutorService executor;
+    private Semaphore inFlight;
+    // async requests not completed yet, failed on destroy so no message is lost
+    private final Set<CompletableFuture<String>> pendingRequests = ConcurrentHashMap.newKeySet();
+    private TbTcpConnectionPool connectionPool;
+    private TbTcpPipeline pipeline;
+    private TbTcpNioEngine nioEngine;
+    private TbSslContextCache sslContextCache;
+    private TbTcpFraming framing;
+    private TbTcpCircuitBreaker circuitBreaker;
+    private TbTcpAddressCache addressCache;
+    TbTcpMetrics metrics;
 
     // Client factory to allow tests to inject mocks. Defaults to real client
     // constructor.
@@ -58,20 +97,115 @@ public class TbSendToTcpNode implements TbNode {
     @Override
     public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
         this.config = TbNodeUtils.convert(configuration, TbSendToTcpNodeConfiguration.class);
-        hostKey = config.getHostKey() != null ? config.getHostKey() : "${tcpHost}";
-        portKey = config.getPortKey() != null ? config.getPortKey() : "${tcpPort}";
+        hostTemplate = TbMsgTemplate.compile(config.getHostKey() != null ? config.getHostKey() : "${tcpHost}");
+        portTemplate = TbMsgTemplate.compile(config.getPortKey() != null ? config.getPortKey() : "${tcpPort}");
         this.tls = config.isTls();
-        tlsConfig = config.getTlsConfig();
-        payloadType = config.getPayloadType() != null ? config.getPayloadType() : "TEXT";
-        responseType = config.getResponseType() != null ? config.getResponseType() : "TEXT";
+        try {
+            constantPort = portTemplate.isConstant() ? Integer.parseInt(portTemplate.getPattern().trim()) : -1;
+            payloadDataType = TbMsgDataType.valueOf(
+                    (config.getPayloadType() != null ? config.getPayloadType() : "TEXT").toUpperCase());
+            responseDataType = TbMsgDataType.valueOf(
+                    (config.getResponseType() != null ? config.getResponseType() : "TEXT").toUpperCase());
+            framing = TbTcpFraming.fromConfig(config.getFraming());
+            responseDecoder = TbTcpResponseDecoder.fromConfig(config.getResponseDecoder());
+        } catch (IllegalArgumentException e) {
+            throw new TbNodeException(e);
+        }
+        connectTimeout = config.getConnectTimeout() > 0 ? config.getConnectTimeout() : 1000;
+        readTimeout = config.getReadTimeout() > 0 ? config.getReadTimeout() : 5000;
+        if (tls) {
+            TbSendToTcpNodeConfiguration.TlsConfig tlsConfig = config.getTlsConfig() != null ? config.getTlsConfig()
+                    : new TbSendToTcpNodeConfiguration.TlsConfig();
+            caTemplate = compile(tlsConfig.getCaCertificateKey());
+            certTemplate = compile(tlsConfig.getCertificateKey());
+            keyTemplate = compile(tlsConfig.getPrivateKeyKey());
+            passphraseTemplate = compile(tlsConfig.getPrivateKeyPassphraseKey());
+            verifyServerCert = tlsConfig.getVerifyServerCertificate() == null || tlsConfig.getVerifyServerCertificate();
+            if (isConstant(caTemplate) && isConstant(certTemplate) && isConstant(keyTemplate)
+                    && isConstant(passphraseTemplate)) {
+                try {
+                    constantTlsIdentity = fingerprint(resolve(caTemplate, null), resolve(certTemplate, null),
+                            resolve(keyTemplate, null), resolve(passphraseTemplate, null),
+                            String.valueOf(verifyServerCert));
+                } catch (java.security.NoSuchAlgorithmException e) {
+                    throw new TbNodeException(e);
+                }
+            }
+        }
+        if (config.getDnsCacheTtl() > 0) {
+            addressCache = new TbTcpAddressCache(10000, config.getDnsCacheTtl());
+        }
+        String engine = config.getClientEngine() != null ? config.getClientEngine().toUpperCase() : "BLOCKING";
+        if (!"BLOCKING".equals(engine) && !"NIO".equals(engine)) {
+            throw new TbNodeException("Unsupported client engine: " + config.getClientEngine());
+        }
+        if ("NIO".equals(engine)) {
+            if (config.isPipelining()) {
+                throw new TbNodeException("Pipelining is not supported by the NIO client engine");
+            }
+            int threads = config.getNioThreads() > 0 ? config.getNioThreads() : 2;
+            int maxIdle = config.isConnectionPooling()
+                    ? (config.getMaxConnectionsPerEndpoint() > 0 ? config.getMaxConnectionsPerEndpoint() : 4)
+                    : 0;
+            int idleTimeout = config.getConnectionIdleTimeout() > 0 ? config.getConnectionIdleTimeout() : 60000;
+            try {
+                nioEngine = new TbTcpNioEngine("tcp-request-node-nio-" + ctx.getSelfId(), threads, maxIdle,
+                        idleTimeout);
+            } catch (java.io.IOException e) {
+                throw new TbNodeException(e);
+            }
+        } else if (config.isAsync()) {
+            int threads = config.getAsyncThreadPoolSize() > 0 ? config.getAsyncThreadPoolSize() : 8;
+            executor = Executors.newFixedThreadPool(threads,
+                    ThingsBoardThreadFactory.forName("tcp-request-node-" + ctx.getSelfId()));
+        }
+        if (config.isPipelining()) {
+            int connections = config.getPipelineConnections() > 0 ? config.getPipelineConnections() : 1;
+            int maxPipelined = config.getMaxPipelinedRequests() > 0 ? config.getMaxPipelinedRequests() : 256;
+            int idleTimeout = config.getConnectionIdleTimeout() > 0 ? config.getConnectionIdleTimeout() : 60000;
+            int maxConnections = config.getMaxPipelineConnections() > 0 ? config.getMaxPipelineConnections() : 128;
+            try {
+                pipeline = new TbTcpPipeline("tcp-request-node-pipeline-" + ctx.getSelfId(), framing, connections,
+                        maxPipelined, config.getCorrelationFieldOffset(), config.getCorrelationFieldLength(),
+                        readTimeout, idleTimeout, maxConnections);
+            } catch (IllegalArgumentException e) {
+                throw new TbNodeException(e);
+            }
+        }
+        if (executor != null || pipeline != null || nioEngine != null) {
+            int maxInFlight = config.getMaxInFlightRequests() > 0 ? config.getMaxInFlightRequests() : 1000;
+            inFlight = new Semaphore(maxInFlight);
+        }
+        int sslCacheSize = config.getSslContextCacheSize() > 0 ? config.getSslContextCacheSize() : 64;
+        sslContextCache = new TbSslContextCache(sslCacheSize, config.getSslContextCacheTtl());
+        if (config.isConnectionPooling() && nioEngine == null) {
+            int maxConnections = config.getMaxConnectionsPerEndpoint() > 0 ? config.getMaxConnectionsPerEndpoint() : 4;
+            int idleTimeout = config.getConnectionIdleTimeout() > 0 ? config.getConnectionIdleTimeout() : 60000;
+            connectionPool = new TbTcpConnectionPool("tcp-request-node-pool-" + ctx.getSelfId(), maxConnections,
+                    idleTimeout);
+        }
+        if (config.isCircuitBreaker()) {
+            int threshold = config.getCircuitFailureThreshold() > 0 ? config.getCircuitFailureThreshold() : 5;
+            long openTimeout = config.getCircuitOpenTimeout() > 0 ? config.getCircuitOpenTimeout() : 1000;
+            long maxOpenTimeout = config.getCircuitMaxOpenTimeout() > 0 ? config.getCircuitMaxOpenTimeout() : 60000;
+            int maxEndpoints = config.getCircuitMaxEndpoints() > 0 ? config.getCircuitMaxEndpoints() : 10000;
+            long idleTimeout = config.getCircuitIdleTimeout() > 0 ? config.getCircuitIdleTimeout() : 600000;
+            circuitBreaker = new TbTcpCircuitBreaker(threshold, openTimeout, maxOpenTimeout, maxEndpoints, idleTimeout);
+        }
+        metrics = new TbTcpMetrics(sslContextCache, connectionPool, circuitBreaker);
+        if (config.getJmxMetrics() == null || config.getJmxMetrics()) {
+            metrics.register(String.valueOf(ctx.getSelfId()));
+        }
     }
 
     @Override
     public void onMsg(TbContext ctx, TbMsg msg) {
+        TbTcpTrace trace = new TbTcpTrace();
+        long start = System.nanoTime();
         String targetHost, portStr;
         try {
-            targetHost = TbNodeUtils.processPattern(hostKey, msg);
-            portStr = TbNodeUtils.processPattern(portKey, msg);
+            targetHost = hostTemplate.resolve(msg);
+            portStr = constantPort >= 0 ? null : portTemplate.resolve(msg);
         } catch (IllegalArgumentException iae) {
             log.error("Failed to process pattern for host/port", iae);
             ctx.tellFailure(msg,
@@ -79,85 +213,246 @@ public class TbSendToTcpNode implements TbNode {
             return;
         }
 
-        int targetPort = 0;
-        try {
-            targetPort = Integer.parseInt(portStr);
-        } catch (Exception e) {
-            log.error("Message doesn't contain a valid port: {}", portStr);
-            ctx.tellFailure(msg, new IllegalArgumentException("Message doesn't contain a valid port: " + portStr));
-            return;
+        trace.resolveNanos = System.nanoTime() - start;
+        metrics.recordResolve(trace.resolveNanos);
+
+        int targetPort = constantPort;
+        if (portStr != null) {
+            try {
+                targetPort = Integer.parseInt(portStr);
+            } catch (Exception e) {
+                metrics.recordParseFailure();
+                log.error("Message doesn't contain a valid port: {}", portStr);
+                ctx.tellFailure(msg, new IllegalArgumentException("Message doesn't contain a valid port: " + portStr));
+                return;
+            }
         }
         try {
-            javax.net.ssl.SSLSocketFactory sslFactory = null;
+            javax.net.ssl.SSLContext sslContext = null;
+            String tlsIdentity = null;
             if (tls) {
-                String caPem = tlsConfig.getCaCertificateKey() != null
-                        ? TbNodeUtils.processPattern(tlsConfig.getCaCertificateKey(), msg)
-                        : null;
-                String certPem = tlsConfig.getCertificateKey() != null
-                        ? TbNodeUtils.processPattern(tlsConfig.getCertificateKey(), msg)
-                        : null;
-                String keyPem = tlsConfig.getPrivateKeyKey() != null
-                        ? TbNodeUtils.processPattern(tlsConfig.getPrivateKeyKey(), msg)
-                        : null;
-                String keyPassword = tlsConfig.getPrivateKeyPassphraseKey() != null
-                        ? TbNodeUtils.processPattern(tlsConfig.getPrivateKeyPassphraseKey(), msg)
-                        : null;
-                boolean verifyServerCert = tlsConfig.getVerifyServerCertificate() == null
-                        || tlsConfig.getVerifyServerCertificate();
-                sslFactory = createSSLSocketFactoryFromPem(caPem, certPem, keyPem, keyPassword, verifyServerCert);
+                String caPem = resolve(caTemplate, msg);
+                String certPem = resolve(certTemplate, msg);
+                String keyPem = resolve(keyTemplate, msg);
+                String keyPassword = resolve(passphraseTemplate, msg);
+                tlsIdentity = constantTlsIdentity != null ? constantTlsIdentity
+                        : fingerprint(caPem, certPem, keyPem, keyPassword, String.valueOf(verifyServerCert));
+                long tlsStart = System.nanoTime();
+                sslContext = sslContextCache.get(tlsIdentity,
+                        () -> createSSLContextFromPem(caPem, certPem, keyPem, keyPassword, verifyServerCert));
+                trace.tlsContextNanos = System.nanoTime() - tlsStart;
+                metrics.recordTlsContext(trace.tlsContextNanos);
+            }
+            TbMsgDataType pt = payloadDataType;
+            TbMsgDataType rt = responseDataType;
+            String endpointKey = TbTcpConnectionPool.key(targetHost, targetPort, tlsIdentity);
+            TbTcpClient client = nioEngine != null
+                    ? new TbTcpNioClient(nioEngine, endpointKey, targetHost, targetPort, sslContext, connectTimeout,
+                            readTimeout)
+                    : clientFactory.create(targetHost, targetPort, tls,
+                            sslContext != null ? sslContext.getSocketFactory() : null, connectTimeout, readTimeout);
+            client.setFraming(framing);
+            client.setTrace(trace);
+            if (addressCache != null) {
+                client.setAddressCache(addressCache);
+            }
+            if (connectionPool != null) {
+                client.setConnectionPool(connectionPool, endpointKey);
+            }
+            client.setRetryStaleConnection(config.isRetryStaleConnection());
+            if (pipeline != null) {
+                client.setPipeline(pipeline, endpointKey);
             }
-            TbMsgDataType pt = TbMsgDataType.valueOf(payloadType.toUpperCase());
-            TbMsgDataType rt = TbMsgDataType.valueOf(responseType.toUpperCase());
-            int connectTimeout = config.getConnectTimeout() > 0 ? config.getConnectTimeout() : 1000;
-            int readTimeout = config.getReadTimeout() > 0 ? config.getReadTimeout() : 5000;
-            TbTcpClient client = clientFactory.create(targetHost, targetPort, tls, sslFactory, connectTimeout,
-                    readTimeout);
-            String payload = null;
+            if (responseDecoder != null) {
+                client.setResponseDecoder(responseDecoder);
+            }
+            String payload;
             try {
-                com.fasterxml.jackson.databind.JsonNode dataNode = com.fasterxml.jackson.databind.node.NullNode
-                        .getInstance();
-                if (msg.getData() != null && !msg.getData().isEmpty()) {
-                    dataNode = new com.fasterxml.jackson.databind.ObjectMapper().readTree(msg.getData());
-                }
-                if (dataNode.has("payload")) {
-                    payload = dataNode.get("payload").asText();
-                }
+                payload = TbTcpCodec.extractPayload(msg.getData());
             } catch (Exception ex) {
+                metrics.recordParseFailure();
                 log.error("Failed to parse message data for 'payload' key", ex);
                 ctx.tellFailure(msg, new IllegalArgumentException(
                         "Failed to parse message data for 'payload' key: " + ex.getMessage()));
                 return;
             }
             if (payload == null) {
+                metrics.recordParseFailure();
                 log.error("No 'payload' key found in msg data");
                 ctx.tellFailure(msg, new IllegalArgumentException("No 'payload' key found in msg data"));
                 return;
             }
-            try {
-                String response = client.sendRequest(payload, pt, rt);
-
-                // Convert response to a TbMsg
-                TbMsg responseMsg = msg.transform()
-                        .data(response)
-                        .dataType(rt) // Keep original response type
-                        .build();
-                log.debug("Received TCP response: {}", response);
-                ctx.tellSuccess(responseMsg);
-            } catch (IllegalArgumentException | java.io.IOException e) {
-                log.error("Failed to encode payload: {}", payload, e);
-                ctx.tellFailure(msg,
-                        new IllegalArgumentException("Payload is not valid for type " + pt + ": " + e.getMessage()));
+            String hostPort = targetHost + ":" + targetPort;
+            long permit = circuitBreaker != null ? circuitBreaker.tryAcquire(hostPort) : 0;
+            if (permit == TbTcpCircuitBreaker.REJECTED) {
+                metrics.recordCircuitOpen();
+                log.debug("Circuit for {} is open, skipping message {}", hostPort, msg.getId());
+                ctx.tellNext(msg, CIRCUIT_OPEN);
+                return;
+            }
+            if (inFlight == null) {
+                metrics.requestStarted();
+                String response;
+                try {
+                    response = client.sendRequest(payload, pt, rt);
+                } catch (IllegalArgumentException | java.io.IOException e) {
+                    trace.totalNanos = System.nanoTime() - start;
+                    metrics.requestCompleted(hostPort, trace, e);
+                    recordOutcome(hostPort, permit, e, trace);
+                    tellRequestFailure(ctx, msg, payload, pt, e);
+                    return;
+                } catch (RuntimeException e) {
+                    trace.totalNanos = System.nanoTime() - start;
+                    metrics.requestCompleted(hostPort, trace, e);
+                    recordOutcome(hostPort, permit, e, trace);
+                    throw e;
+                }
+                trace.totalNanos = System.nanoTime() - start;
+                metrics.requestCompleted(hostPort, trace, null);
+                recordOutcome(hostPort, permit, null, trace);
+                tellResponse(ctx, msg, response, rt, trace);
                 return;
             }
+            if (!inFlight.tryAcquire()) {
+                releaseCircuit(hostPort, permit);
+                metrics.recordRejected();
+                log.debug("Max in-flight requests limit reached, rejecting message {}", msg.getId());
+                ctx.tellFailure(msg, new RejectedExecutionException("Max in-flight TCP requests limit reached"));
+                return;
+            }
+            metrics.requestStarted();
+            try {
+                CompletableFuture<String> request = client.sendRequestAsync(payload, pt, rt, executor);
+                pendingRequests.add(request);
+                request.whenComplete((response, error) -> {
+                    pendingRequests.remove(request);
+                    inFlight.release();
+                    trace.totalNanos = System.nanoTime() - start;
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    metrics.requestCompleted(hostPort, trace, cause);
+                    recordOutcome(hostPort, permit, cause, trace);
+                    if (error == null) {
+                        tellResponse(ctx, msg, response, rt, trace);
+                        return;
+                    }
+                    if (cause instanceof IllegalArgumentException || cause instanceof java.io.IOException) {
+                        tellRequestFailure(ctx, msg, payload, pt, (Exception) cause);
+                    } else {
+                        log.error("TCP node failed to process message", cause);
+                        ctx.tellFailure(msg,
+                                new TbNodeException("Unable to process message: " + cause.getLocalizedMessage()));
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.release();
+                trace.totalNanos = System.nanoTime() - start;
+                metrics.requestCompleted(hostPort, trace, e);
+                recordOutcome(hostPort, permit, e, trace);
+                ctx.tellFailure(msg, e);
+            }
         } catch (Exception e) {
             log.error("TCP node failed to process message", e.fillInStackTrace());
             ctx.tellFailure(msg, new TbNodeException("Unable to process message: " + e.getLocalizedMessage()));
         }
     }
 
-    // Helper: create SSLSocketFactory from PEM strings (CA, client cert, private
-    // key)
-    private javax.net.ssl.SSLSocketFactory createSSLSocketFactoryFromPem(String caPem, String certPem, String keyPem,
+    // Helper: report the outcome of a request to the circuit breaker, only I/O
+    // errors count as endpoint failures. An endpoint that answered is healthy even
+    // if its reply could not be decoded. An exhausted connection pool is local
+    // back-pressure and says nothing about the endpoint.
+    private void recordOutcome(String hostPort, long permit, Throwable error, TbTcpTrace trace) {
+        if (circuitBreaker == null) {
+            return;
+        }
+        if (error == null || error instanceof TbTcpResponseDecoder.DecodeException
+                || (!(error instanceof java.io.IOException) && trace.bytesIn > 0)) {
+            circuitBreaker.onSuccess(hostPort, permit);
+        } else if (error instanceof java.io.IOException
+                && !(error instanceof TbTcpConnectionPool.PoolExhaustedException)) {
+            circuitBreaker.onFailure(hostPort, permit);
+        } else {
+            circuitBreaker.release(hostPort, permit);
+        }
+    }
+
+    // Helper: return the circuit permit of a request that was never sent
+    private void releaseCircuit(String hostPort, long permit) {
+        if (circuitBreaker != null) {
+            circuitBreaker.release(hostPort, permit);
+        }
+    }
+
+    private void tellResponse(TbContext ctx, TbMsg msg, String response, TbMsgDataType rt, TbTcpTrace trace) {
+        // Convert response to a TbMsg
+        TbMsg responseMsg = msg.transform()
+                .data(response)
+                .dataType(responseDecoder != null ? TbMsgDataType.JSON : rt) // Keep original response type
+                .metaData(config.isTimingMetadata() ? timingMetadata(msg.getMetaData(), trace) : msg.getMetaData())
+                .build();
+        log.debug("Received TCP response of {} bytes in {} us", trace.bytesIn, trace.totalNanos / 1000);
+        ctx.tellSuccess(responseMsg);
+    }
+
+    private static TbMsgMetaData timingMetadata(TbMsgMetaData metaData, TbTcpTrace trace) {
+        TbMsgMetaData result = metaData.copy();
+        result.putValue("tcpResolveUs", Long.toString(trace.resolveNanos / 1000));
+        result.putValue("tcpTlsContextUs", Long.toString(trace.tlsContextNanos / 1000));
+        result.putValue("tcpConnectUs", Long.toString(trace.connectNanos / 1000));
+        result.putValue("tcpHandshakeUs", Long.toString(trace.handshakeNanos / 1000));
+        result.putValue("tcpWriteUs", Long.toString(trace.writeNanos / 1000));
+        result.putValue("tcpFirstByteUs", Long.toString(trace.firstByteNanos / 1000));
+        result.putValue("tcpTotalUs", Long.toString(trace.totalNanos / 1000));
+        result.putValue("tcpBytesOut", Long.toString(trace.bytesOut));
+        result.putValue("tcpBytesIn", Long.toString(trace.bytesIn));
+        return result;
+    }
+
+    private void tellRequestFailure(TbContext ctx, TbMsg msg, String payload, TbMsgDataType pt, Exception e) {
+        if (e instanceof TbTcpResponseDecoder.DecodeException) {
+            // already counted as a parse failure by requestCompleted
+            log.debug("Failed to decode TCP response: {}", e.getMessage());
+            ctx.tellFailure(msg, e);
+            return;
+        }
+        log.error("Failed to encode payload: {}", payload, e);
+        ctx.tellFailure(msg,
+                new IllegalArgumentException("Payload is not valid for type " + pt + ": " + e.getMessage()));
+    }
+
+    private static TbMsgTemplate compile(String pattern) {
+        return pattern != null ? TbMsgTemplate.compile(pattern) : null;
+    }
+
+    private static boolean isConstant(TbMsgTemplate template) {
+        return template == null || template.isConstant();
+    }
+
+    private static String resolve(TbMsgTemplate template, TbMsg msg) {
+        if (template == null) {
+            return null;
+        }
+        return template.isConstant() ? template.getPattern() : template.resolve(msg);
+    }
+
+    // Helper: SHA-256 over the resolved TLS material, identifies the client
+    // credentials without keeping the secrets in map keys
+    private static String fingerprint(String... values) throws java.security.NoSuchAlgorithmException {
+        java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
+        for (String value : values) {
+            if (value == null) {
+                digest.update((byte) 1);
+            } else {
+                digest.update((byte) 0);
+                digest.update(value.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            }
+        }
+        return java.util.HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Helper: create SSLContext from PEM strings (CA, client cert, private key)
+    private javax.net.ssl.SSLContext createSSLContextFromPem(String caPem, String certPem, String keyPem,
             String keyPassword, boolean verifyServerCert) throws Exception {
         java.security.KeyStore trustStore = java.security.KeyStore.getInstance(java.security.KeyStore.getDefaultType());
         trustStore.load(null, null);
@@ -205,7 +500,7 @@ public class TbSendToTcpNode implements TbNode {
         }
         javax.net.ssl.SSLContext ctx = javax.net.ssl.SSLContext.getInstance("TLS");
         ctx.init(kms, trustManagers, null);
-        return ctx.getSocketFactory();
+        return ctx;
     }
 
     // Helper: parse PEM private key (PKCS#8, PKCS#1 RSA, or SEC1 EC)
@@ -395,6 +690,39 @@ public class TbSendToTcpNode implements TbNode {
 
     @Override
     public void destroy() {
-        // No resources to clean up
+        if (executor != null) {
+            // Does not block on running requests, they end at their read timeout at
+            // the latest. Every request still pending is failed right away below.
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (connectionPool != null) {
+            connectionPool.close();
+            connectionPool = null;
+        }
+        if (pipeline != null) {
+            pipeline.close();
+            pipeline = null;
+        }
+        if (nioEngine != null) {
+            nioEngine.close();
+            nioEngine = null;
+        }
+        for (CompletableFuture<String> request : pendingRequests) {
+            request.completeExceptionally(new java.io.IOException("TCP node stopped before the request completed"));
+        }
+        pendingRequests.clear();
+        if (sslContextCache != null) {
+            sslContextCache.clear();
+        }
+        if (circuitBreaker != null) {
+            circuitBreaker.clear();
+        }
+        if (addressCache != null) {
+            addressCache.clear();
+        }
+        if (metrics != null) {
+            metrics.unregister();
+        }
     }
 }
@@ -18,6 +18,8 @@ package org.thingsboard.rule.engine.node.external;
 import lombok.Data;
 import org.thingsboard.rule.engine.api.NodeConfiguration;
 
+import java.util.List;
+
 @Data
 public class TbSendToTcpNodeConfiguration implements NodeConfiguration<TbSendToTcpNodeConfiguration> {
     /**
@@ -40,6 +42,124 @@ public class TbSendToTcpNodeConfiguration implements NodeConfiguration<TbSendToT
      * Enable TLS
      */
     private boolean tls;
+    /**
+     * Execute requests on a dedicated executor instead of the rule-engine thread
+     */
+    private boolean async;
+    /**
+     * Number of threads used to execute requests in async mode
+     */
+    private int asyncThreadPoolSize;
+    /**
+     * Maximum number of requests queued or in flight in async mode. Messages over
+     * the limit are failed immediately instead of blocking the rule-engine thread.
+     */
+    private int maxInFlightRequests;
+    /**
+     * Client engine, one of BLOCKING or NIO. NIO multiplexes all requests over a
+     * few selector threads, is always asynchronous and does not support
+     * pipelining.
+     */
+    private String clientEngine;
+    /**
+     * Number of selector threads of the NIO client engine
+     */
+    private int nioThreads;
+    /**
+     * Keep connections open and reuse them for subsequent messages to the same
+     * endpoint (host, port and TLS identity)
+     */
+    private boolean connectionPooling;
+    /**
+     * Maximum number of pooled connections per endpoint
+     */
+    private int maxConnectionsPerEndpoint;
+    /**
+     * Idle time (ms) after which a pooled or pipelined connection is closed
+     */
+    private int connectionIdleTimeout;
+    /**
+     * Resend a request once on a fresh connection when a reused pooled connection
+     * is closed by the peer before any reply byte arrived. Only safe for
+     * idempotent requests, the peer may have executed the first copy.
+     */
+    private boolean retryStaleConnection;
+    /**
+     * Maximum number of SSL contexts built from PEM material kept in the cache
+     */
+    private int sslContextCacheSize;
+    /**
+     * Time (ms) after which a cached SSL context is rebuilt, 0 - never
+     */
+    private long sslContextCacheTtl;
+    /**
+     * Time (ms) for which resolved endpoint addresses are reused, 0 - addresses
+     * are resolved for every new connection
+     */
+    private long dnsCacheTtl;
+    /**
+     * Write requests back to back over persistent connections without waiting for
+     * each reply. Requires response framing.
+     */
+    private boolean pipelining;
+    /**
+     * Number of persistent connections per endpoint in pipelining mode
+     */
+    private int pipelineConnections;
+    /**
+     * Maximum number of pipelined connections across all endpoints. Every
+     * connection uses two threads, requests to an endpoint without a connection
+     * are failed once the limit is reached.
+     */
+    private int maxPipelineConnections;
+    /**
+     * Maximum number of requests awaiting a reply on a pipelined connection
+     */
+    private int maxPipelinedRequests;
+    /**
+     * Offset of the correlation field in request and reply frames
+     */
+    private int correlationFieldOffset;
+    /**
+     * Length of the correlation field in bytes, 0 - replies are matched in FIFO
+     * order
+     */
+    private int correlationFieldLength;
+    /**
+     * Fail fast with the "Circuit Open" relation for endpoints (host:port) that
+     * failed repeatedly instead of waiting for the connect or read timeout
+     */
+    private boolean circuitBreaker;
+    /**
+     * Number of consecutive I/O failures that opens the circuit of an endpoint
+     */
+    private int circuitFailureThreshold;
+    /**
+     * Time (ms) a circuit stays open before a probe request is let through,
+     * doubled after every failed probe
+     */
+    private long circuitOpenTimeout;
+    /**
+     * Upper bound (ms) of the open time of a circuit
+     */
+    private long circuitMaxOpenTimeout;
+    /**
+     * Maximum number of endpoints tracked by the circuit breaker
+     */
+    private int circuitMaxEndpoints;
+    /**
+     * Idle time (ms) after which the circuit state of an endpoint is dropped
+     */
+    private long circuitIdleTimeout;
+    /**
+     * Publish request metrics of the node over JMX, null - enabled
+     */
+    private Boolean jmxMetrics;
+    /**
+     * Add request timings (us) and transferred bytes to the metadata of the
+     * outgoing message
+     */
+    private boolean timingMetadata;
 
     /**
      * Payload type: STRING, JSON, BINARY
@@ -49,6 +169,17 @@ public class TbSendToTcpNodeConfiguration implements NodeConfiguration<TbSendToT
      * Response type: STRING, JSON, BINARY
      */
     private String responseType; // STRING, JSON, BINARY
+    /**
+     * Decodes the response into telemetry JSON instead of the
+     * {"response":...} envelope, null - disabled
+     */
+    private ResponseDecoderConfig responseDecoder;
+
+    /**
+     * Response framing. Without framing the response is read until EOF or read
+     * timeout.
+     */
+    private FramingConfig framing = new FramingConfig();
 
     /**
      * TLS configuration (PEM or Keystore/Truststore, SNI, ALPN, etc).
@@ -92,6 +223,106 @@ public class TbSendToTcpNodeConfiguration implements NodeConfiguration<TbSendToT
         private String alpnProtocolKey;
     }
 
+    /**
+     * Response framing options, see {@link TbTcpFraming}.
+     */
+    @Data
+    public static class FramingConfig {
+        /**
+         * NONE, FIXED_LENGTH, LENGTH_PREFIXED or DELIMITER
+         */
+        private String type;
+        /**
+         * Frame length in bytes for FIXED_LENGTH framing
+         */
+        private int fixedLength;
+        /**
+         * Offset of the length field from the start of the frame
+         */
+        private int lengthFieldOffset;
+        /**
+         * Size of the length field in bytes: 1, 2 or 4
+         */
+        private int lengthFieldSize;
+        /**
+         * Byte order of the length field: BIG_ENDIAN or LITTLE_ENDIAN
+         */
+        private String byteOrder;
+        /**
+         * Value added to the length field to get the number of bytes following it,
+         * e.g. -2 when a 2 byte length includes itself
+         */
+        private int lengthAdjustment;
+        /**
+         * Frame delimiter, either hex (e.g. "0x03") or text with escapes (e.g. "\\n")
+         */
+        private String delimiter;
+        /**
+         * Remove the length header or delimiter from the response
+         */
+        private boolean stripFraming;
+        /**
+         * Maximum response size in bytes, 0 - unlimited
+         */
+        private int maxFrameBytes;
+    }
+
+    /**
+     * Response decoder options, see {@link TbTcpResponseDecoder}.
+     */
+    @Data
+    public static class ResponseDecoderConfig {
+        /**
+         * BINARY (fields at byte offsets) or DELIMITED (columns of a text record)
+         */
+        private String format;
+        /**
+         * Byte order of binary fields: BIG_ENDIAN (default) or LITTLE_ENDIAN
+         */
+        private String byteOrder;
+        /**
+         * Column separator for DELIMITED format, same syntax as the framing
+         * delimiter, default ","
+         */
+        private String delimiter;
+        private List<DecoderFieldConfig> fields;
+    }
+
+    @Data
+    public static class DecoderFieldConfig {
+        /**
+         * Telemetry key
+         */
+        private String key;
+        /**
+         * Byte offset in the response frame for BINARY format, zero based column
+         * index for DELIMITED format
+         */
+        private int offset;
+        /**
+         * INT8, UINT8, INT16, UINT16, INT32, UINT32, INT64, FLOAT32, FLOAT64,
+         * BOOLEAN, STRING or HEX for BINARY format; NUMBER, BOOLEAN or STRING for
+         * DELIMITED format
+         */
+        private String type;
+        /**
+         * Length in bytes of binary STRING and HEX fields
+         */
+        private int length;
+        /**
+         * Bit (0 - 7) of a binary BOOLEAN field, null - any bit set
+         */
+        private Integer bit;
+        /**
+         * Byte order of this field, overrides the decoder byte order
+         */
+        private String byteOrder;
+        /**
+         * Multiplier of a numeric value, null - none
+         */
+        private Double scale;
+    }
+
     @Override
     public TbSendToTcpNodeConfiguration defaultConfiguration() {
         TbSendToTcpNodeConfiguration config = new TbSendToTcpNodeConfiguration();
@@ -100,7 +331,39 @@ public class TbSendToTcpNodeConfiguration implements NodeConfiguration<TbSendToT
         config.setConnectTimeout(1000);
         config.setReadTimeout(5000);
         config.setTls(false);
+        config.setAsync(false);
+        config.setAsyncThreadPoolSize(8);
+        config.setMaxInFlightRequests(1000);
+        config.setClientEngine("BLOCKING");
+        config.setNioThreads(2);
+        config.setConnectionPooling(false);
+        config.setMaxConnectionsPerEndpoint(4);
+        config.setConnectionIdleTimeout(60000);
+        config.setRetryStaleConnection(false);
+        config.setSslContextCacheSize(64);
+        config.setSslContextCacheTtl(0);
+        config.setDnsCacheTtl(60000);
+        config.setPipelining(false);
+        config.setPipelineConnections(1);
+        config.setMaxPipelineConnections(128);
+        config.setMaxPipelinedRequests(256);
+        config.setCorrelationFieldOffset(0);
+        config.setCorrelationFieldLength(0);
+        config.setCircuitBreaker(false);
+        config.setCircuitFailureThreshold(5);
+        config.setCircuitOpenTimeout(1000);
+        config.setCircuitMaxOpenTimeout(60000);
+        config.setCircuitMaxEndpoints(10000);
+        config.setCircuitIdleTimeout(600000);
+        config.setJmxMetrics(true);
+        config.setTimingMetadata(false);
         config.setTlsConfig(new TlsConfig());
+        FramingConfig framing = new FramingConfig();
+        framing.setType("NONE");
+        framing.setLengthFieldSize(2);
+        framing.setByteOrder("BIG_ENDIAN");
+        framing.setMaxFrameBytes(1048576);
+        config.setFraming(framing);
         return config;
     }
 }
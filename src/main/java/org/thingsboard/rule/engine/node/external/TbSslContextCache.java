@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Bounded LRU cache of SSL contexts built from PEM material, keyed by a
+ * fingerprint of the resolved CA, certificate, key and passphrase values.
+ * Reusing the context lets JSSE resume sessions across messages to the same
+ * endpoint, for both socket factories and SSL engines.
+ */
+public class TbSslContextCache {
+
+    private final Cache<String, SSLContext> cache;
+
+    public TbSslContextCache(int maxSize, long ttlMs) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats();
+        if (ttlMs > 0) {
+            builder.expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS);
+        }
+        this.cache = builder.build();
+    }
+
+    /**
+     * Returns the cached context for the key or builds and caches a new one.
+     * Exceptions thrown by the builder are rethrown unwrapped.
+     */
+    public SSLContext get(String key, Callable<SSLContext> contextBuilder) throws Exception {
+        try {
+            return cache.get(key, contextBuilder);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public double getHitRate() {
+        return cache.stats().hitRate();
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * Average time spent parsing PEMs and building an SSLContext, in milliseconds.
+     */
+    public double getAverageBuildTimeMs() {
+        CacheStats stats = cache.stats();
+        return stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Resolved socket addresses of the endpoints, kept for the configured DNS TTL.
+ * Names that do not resolve are not cached, the connect attempt reports them.
+ */
+public class TbTcpAddressCache {
+
+    private final Cache<String, InetSocketAddress> cache;
+
+    public TbTcpAddressCache(int maxSize, long ttlMs) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public InetSocketAddress resolve(String host, int port) {
+        String key = host + ":" + port;
+        InetSocketAddress address = cache.getIfPresent(key);
+        if (address == null) {
+            address = new InetSocketAddress(host, port);
+            if (!address.isUnresolved()) {
+                cache.put(key, address);
+            }
+        }
+        return address;
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+}
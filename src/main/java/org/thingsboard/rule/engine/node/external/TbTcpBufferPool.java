@@ -0,0 +1,115 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Free lists of direct buffers. Not thread safe, each selector thread of
+ * {@link TbTcpNioEngine} owns a pool. Buffers are pooled in size classes of
+ * the base size doubled up to the max direct size, so that buffers grown for
+ * large responses are reused as well. Larger ones are allocated on the heap and
+ * left to the garbage collector.
+ */
+public class TbTcpBufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final int maxDirectSize;
+    // free buffers of bufferSize << i bytes
+    private final Deque<ByteBuffer>[] free;
+
+    /**
+     * @param maxPooled     number of base size buffers kept, halved for every
+     *                      larger size class so that each class holds about the
+     *                      same amount of memory
+     * @param maxDirectSize capacity above which grown buffers are heap buffers
+     */
+    @SuppressWarnings("unchecked")
+    public TbTcpBufferPool(int bufferSize, int maxPooled, int maxDirectSize) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        this.maxDirectSize = maxDirectSize;
+        int classes = 1;
+        while ((long) bufferSize << classes <= maxDirectSize) {
+            classes++;
+        }
+        this.free = new Deque[classes];
+        for (int i = 0; i < classes; i++) {
+            free[i] = new ArrayDeque<>();
+        }
+    }
+
+    public ByteBuffer acquire() {
+        return acquire(0);
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return;
+        }
+        int sizeClass = sizeClass(buffer.capacity());
+        if (sizeClass < free.length && buffer.capacity() == bufferSize << sizeClass
+                && free[sizeClass].size() < Math.max(maxPooled >> sizeClass, 1)) {
+            buffer.clear();
+            free[sizeClass].addLast(buffer);
+        }
+    }
+
+    /**
+     * Returns a buffer of at least twice the capacity holding the bytes written
+     * to the given one, which is released.
+     */
+    public ByteBuffer grow(ByteBuffer buffer, int minCapacity) {
+        int capacity = Math.max(buffer.capacity() * 2, minCapacity);
+        int sizeClass = sizeClass(capacity);
+        ByteBuffer grown = sizeClass < free.length ? acquire(sizeClass) : ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        release(buffer);
+        return grown;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Deque<ByteBuffer> buffers : free) {
+            size += buffers.size();
+        }
+        return size;
+    }
+
+    private ByteBuffer acquire(int sizeClass) {
+        ByteBuffer buffer = free[sizeClass].pollLast();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize << sizeClass);
+    }
+
+    /**
+     * Returns the smallest size class holding the capacity.
+     */
+    private int sizeClass(int capacity) {
+        int sizeClass = 0;
+        while (sizeClass < free.length && bufferSize << sizeClass < capacity) {
+            sizeClass++;
+        }
+        return sizeClass;
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Per endpoint circuit breaker. A circuit opens after the configured number of
+ * consecutive failures and rejects requests until its backoff elapsed, then
+ * lets a single probe request through. A failed probe reopens the circuit with
+ * twice the backoff up to the maximum, a successful request closes it. Backoffs
+ * are jittered between half and the full value so that endpoints which failed
+ * together are not probed together. Idle endpoints are evicted.
+ * <p>
+ * Outcomes are reported with the permit returned by {@link #tryAcquire}. While
+ * the circuit is not closed, only the outcome of the probe permit changes its
+ * state, late outcomes of requests let through before it opened are ignored.
+ */
+public class TbTcpCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Returned by {@link #tryAcquire} when the request must not be sent.
+     */
+    public static final long REJECTED = -1;
+    // permit of the requests let through a closed circuit, probes get positive ids
+    private static final long CLOSED_PERMIT = 0;
+
+    private final int failureThreshold;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final LongSupplier clock;
+    private final Cache<String, Circuit> circuits;
+
+    public TbTcpCircuitBreaker(int failureThreshold, long initialBackoffMs, long maxBackoffMs, int maxEndpoints,
+            long idleTimeoutMs) {
+        this(failureThreshold, initialBackoffMs, maxBackoffMs, maxEndpoints, idleTimeoutMs, System::currentTimeMillis);
+    }
+
+    TbTcpCircuitBreaker(int failureThreshold, long initialBackoffMs, long maxBackoffMs, int maxEndpoints,
+            long idleTimeoutMs, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = Math.max(maxBackoffMs, initialBackoffMs);
+        this.clock = clock;
+        this.circuits = CacheBuilder.newBuilder()
+                .maximumSize(maxEndpoints)
+                .expireAfterAccess(idleTimeoutMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Returns the permit of a request to the endpoint, or {@link #REJECTED} when
+     * it must not be sent. Every permitted request must be followed by
+     * {@link #onSuccess}, {@link #onFailure} or {@link #release} with the permit.
+     */
+    public long tryAcquire(String endpoint) {
+        return circuit(endpoint).tryAcquire(clock.getAsLong());
+    }
+
+    public void onSuccess(String endpoint, long permit) {
+        circuit(endpoint).onSuccess(permit);
+    }
+
+    public void onFailure(String endpoint, long permit) {
+        circuit(endpoint).onFailure(permit, clock.getAsLong());
+    }
+
+    /**
+     * Returns a permit of a request that was not sent, without recording an
+     * outcome.
+     */
+    public void release(String endpoint, long permit) {
+        circuit(endpoint).release(permit);
+    }
+
+    public long getOpenCircuits() {
+        return circuits.asMap().values().stream().filter(c -> c.state() != State.CLOSED).count();
+    }
+
+    State state(String endpoint) {
+        return circuit(endpoint).state();
+    }
+
+    public void clear() {
+        circuits.invalidateAll();
+    }
+
+    private Circuit circuit(String endpoint) {
+        try {
+            return circuits.get(endpoint, Circuit::new);
+        } catch (ExecutionException e) {
+            // the loader does not throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class Circuit {
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long backoffMs;
+        private long openUntil;
+        // permit of the probe in flight, CLOSED_PERMIT - none
+        private long probe = CLOSED_PERMIT;
+        private long lastProbe;
+
+        synchronized long tryAcquire(long now) {
+            switch (state) {
+                case CLOSED:
+                    return CLOSED_PERMIT;
+                case OPEN:
+                    if (now < openUntil) {
+                        return REJECTED;
+                    }
+                    state = State.HALF_OPEN;
+                    return probe = ++lastProbe;
+                default:
+                    if (probe != CLOSED_PERMIT) {
+                        return REJECTED;
+                    }
+                    return probe = ++lastProbe;
+            }
+        }
+
+        synchronized void onSuccess(long permit) {
+            if (state != State.CLOSED && permit != probe) {
+                return;
+            }
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            backoffMs = 0;
+            probe = CLOSED_PERMIT;
+        }
+
+        synchronized void onFailure(long permit, long now) {
+            if (state == State.HALF_OPEN) {
+                if (permit == probe) {
+                    open(now, Math.min(backoffMs * 2, maxBackoffMs));
+                }
+            } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+                open(now, initialBackoffMs);
+            }
+        }
+
+        synchronized void release(long permit) {
+            if (permit == probe) {
+                probe = CLOSED_PERMIT;
+            }
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        private void open(long now, long backoff) {
+            state = State.OPEN;
+            probe = CLOSED_PERMIT;
+            backoffMs = backoff;
+            long half = backoff / 2;
+            openUntil = now + half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+        }
+    }
+
+}
@@ -15,16 +15,23 @@
  */
 package org.thingsboard.rule.engine.node.external;
 
-import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import javax.net.SocketFactory;
+import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 
 import org.thingsboard.server.common.msg.TbMsgDataType;
@@ -36,12 +43,26 @@ import org.thingsboard.server.common.msg.TbMsgDataType;
 public class TbTcpClient {
     // All encoding/decoding now uses TbMsgDataType directly
 
-    private final String host;
-    private final int port;
+    // Read buffer reused by all requests executed on the same thread
+    private static final ThreadLocal<byte[]> READ_BUFFER = ThreadLocal.withInitial(() -> new byte[4096]);
+
+    final String host;
+    final int port;
     private final boolean tls;
     private final SSLSocketFactory sslSocketFactory;
-    private final int connectTimeoutMs;
-    private final int readTimeoutMs;
+    final int connectTimeoutMs;
+    final int readTimeoutMs;
+    private TbTcpConnectionPool connectionPool;
+    private String poolKey;
+    TbTcpFraming framing = TbTcpFraming.NONE;
+    private TbTcpPipeline pipeline;
+    private String endpointKey;
+    TbTcpTrace trace;
+    private TbTcpAddressCache addressCache;
+    private TbTcpResponseDecoder responseDecoder;
+    boolean retryStaleConnection;
+    // bytes of the response read so far, tells whether a failed read may be retried
+    private int responseBytes;
 
     public TbTcpClient(String host, int port, boolean tls, SSLSocketFactory sslSocketFactory, int connectTimeoutMs,
             int readTimeoutMs) {
@@ -53,41 +74,243 @@ public class TbTcpClient {
         this.readTimeoutMs = readTimeoutMs;
     }
 
+    /**
+     * Borrows connections from the given pool instead of opening and closing a
+     * socket per request.
+     */
+    public void setConnectionPool(TbTcpConnectionPool connectionPool, String poolKey) {
+        this.connectionPool = connectionPool;
+        this.poolKey = poolKey;
+    }
+
+    /**
+     * Writes asynchronous requests on the persistent connections of the pipeline
+     * instead of using a socket per request.
+     */
+    public void setPipeline(TbTcpPipeline pipeline, String endpointKey) {
+        this.pipeline = pipeline;
+        this.endpointKey = endpointKey;
+    }
+
+    /**
+     * Resends a request once on a fresh connection when a reused connection
+     * closes after the request was written but before any response byte arrived.
+     * Only safe for idempotent requests, the peer may have received the first
+     * copy. A request whose write failed is always retried.
+     */
+    public void setRetryStaleConnection(boolean retryStaleConnection) {
+        this.retryStaleConnection = retryStaleConnection;
+    }
+
+    /**
+     * Takes the endpoint address from the cache instead of resolving the host
+     * for every new connection.
+     */
+    public void setAddressCache(TbTcpAddressCache addressCache) {
+        this.addressCache = addressCache;
+    }
+
+    /**
+     * Decodes responses into telemetry JSON with the given decoder instead of
+     * wrapping them into the {@code {"response":...}} envelope.
+     */
+    public void setResponseDecoder(TbTcpResponseDecoder responseDecoder) {
+        this.responseDecoder = responseDecoder;
+    }
+
+    /**
+     * Records the connect, handshake, write and first byte times and the
+     * transferred bytes of the next request into the trace.
+     */
+    public void setTrace(TbTcpTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Returns the response as soon as a complete frame arrived instead of
+     * reading until EOF or read timeout.
+     */
+    public void setFraming(TbTcpFraming framing) {
+        this.framing = framing != null ? framing : TbTcpFraming.NONE;
+    }
+
     /**
      * Sends the payload and returns the response as bytes.
      */
     public byte[] sendRequest(byte[] payload) throws IOException {
-        Socket socket = null;
-        try {
-            socket = tls && sslSocketFactory != null ? sslSocketFactory.createSocket()
-                    : SocketFactory.getDefault().createSocket();
-            socket.connect(new InetSocketAddress(host, port), connectTimeoutMs);
-            socket.setSoTimeout(readTimeoutMs);
-            OutputStream out = socket.getOutputStream();
-            out.write(payload);
-            out.flush();
-            InputStream in = socket.getInputStream();
-            ByteArrayOutputStream responseBuffer = new ByteArrayOutputStream();
-            byte[] buffer = new byte[4096];
-            int len;
+        if (connectionPool == null) {
+            Socket socket = null;
             try {
-                while ((len = in.read(buffer)) != -1) {
-                    responseBuffer.write(buffer, 0, len);
+                socket = openSocket();
+                return exchange(socket, payload).data;
+            } finally {
+                if (socket != null) {
+                    try {
+                        socket.close();
+                    } catch (Exception ignored) {
+                    }
                 }
-            } catch (SocketTimeoutException e) {
-                // No more data arrived within readTimeoutMs — treat as end of response
             }
-            if (responseBuffer.size() == 0) {
-                throw new IOException("No response received from TCP server");
+        }
+        TbTcpConnectionPool.Connection connection = connectionPool.borrow(poolKey, this::openConnection, connectTimeoutMs);
+        boolean reusable = false;
+        boolean written = false;
+        try {
+            long writtenAt = write(connection.getSocket(), payload);
+            written = true;
+            Response response = read(connection.getSocket(), writtenAt);
+            reusable = response.reusable;
+            return response.data;
+        } catch (IOException e) {
+            // Stale keep-alive connection, the peer most likely closed it. A request
+            // that was written may have been executed, it is only resent on request.
+            if (!connection.isReused() || (written
+                    && !(retryStaleConnection && responseBytes == 0 && (e instanceof EOFException || e instanceof SocketException)))) {
+                throw e;
             }
-            return responseBuffer.toByteArray();
+            connectionPool.invalidate(poolKey);
         } finally {
-            if (socket != null) {
-                try {
-                    socket.close();
-                } catch (Exception ignored) {
+            connectionPool.release(poolKey, connection, reusable);
+        }
+        connection = connectionPool.borrow(poolKey, this::openConnection, connectTimeoutMs);
+        reusable = false;
+        try {
+            Response response = exchange(connection.getSocket(), payload);
+            reusable = response.reusable;
+            return response.data;
+        } finally {
+            connectionPool.release(poolKey, connection, reusable);
+        }
+    }
+
+    private Socket openSocket() throws IOException {
+        return openConnection().getSocket();
+    }
+
+    /**
+     * Connects a plain socket and, for TLS, layers the TLS socket over it so the
+     * pool can probe the transport.
+     */
+    private TbTcpConnectionPool.Connection openConnection() throws IOException {
+        Socket transport = SocketFactory.getDefault().createSocket();
+        Socket socket = transport;
+        try {
+            long start = System.nanoTime();
+            transport.connect(address(), connectTimeoutMs);
+            long connected = System.nanoTime();
+            if (trace != null) {
+                trace.connectNanos += connected - start;
+            }
+            if (connectionPool != null || pipeline != null) {
+                transport.setKeepAlive(true);
+            }
+            if (tls && sslSocketFactory != null) {
+                socket = sslSocketFactory.createSocket(transport, host, port, true);
+            }
+            socket.setSoTimeout(readTimeoutMs);
+            if (socket instanceof SSLSocket) {
+                // Handshake up front so that its time is not counted as write time
+                ((SSLSocket) socket).startHandshake();
+                if (trace != null) {
+                    trace.handshakeNanos += System.nanoTime() - connected;
                 }
             }
+            return new TbTcpConnectionPool.Connection(socket, transport);
+        } catch (IOException e) {
+            closeQuietly(socket);
+            closeQuietly(transport);
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+    InetSocketAddress address() {
+        return addressCache != null ? addressCache.resolve(host, port) : new InetSocketAddress(host, port);
+    }
+
+    private Response exchange(Socket socket, byte[] payload) throws IOException {
+        return read(socket, write(socket, payload));
+    }
+
+    /**
+     * Writes the request and returns the time it was written.
+     */
+    private long write(Socket socket, byte[] payload) throws IOException {
+        if (trace != null) {
+            trace.connected = true;
+        }
+        long start = System.nanoTime();
+        OutputStream out = socket.getOutputStream();
+        out.write(payload);
+        out.flush();
+        long written = System.nanoTime();
+        if (trace != null) {
+            trace.writeNanos += written - start;
+            trace.bytesOut += payload.length;
+        }
+        return written;
+    }
+
+    private Response read(Socket socket, long written) throws IOException {
+        InputStream in = socket.getInputStream();
+        // Larger responses grow a private copy, the shared buffer keeps its size
+        return readResponse(in, READ_BUFFER.get(), written);
+    }
+
+    private Response readResponse(InputStream in, byte[] buffer, long written) throws IOException {
+        responseBytes = 0;
+        int len = 0;
+        int scanFrom = 0;
+        int n;
+        boolean eof = false;
+        try {
+            while ((n = in.read(buffer, len, buffer.length - len)) != -1) {
+                if (trace != null) {
+                    if (len == 0 && n > 0) {
+                        trace.firstByteNanos = System.nanoTime() - written;
+                    }
+                    trace.bytesIn += n;
+                }
+                len += n;
+                responseBytes = len;
+                int frameLength = framing.frameLength(buffer, len, scanFrom);
+                if (frameLength >= 0) {
+                    // Bytes past the frame belong to nobody, do not reuse the connection
+                    return new Response(framing.extract(buffer, frameLength), len == frameLength);
+                }
+                scanFrom = framing.resumeScanAt(len);
+                if (len == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            eof = true;
+        } catch (SocketTimeoutException e) {
+            // No more data arrived within readTimeoutMs — treat as end of response
+        }
+        if (len == 0) {
+            throw eof ? new EOFException("No response received from TCP server")
+                    : new SocketTimeoutException("No response received from TCP server");
+        }
+        if (!framing.isNone()) {
+            throw new IOException((eof ? "Connection closed" : "Read timed out") + " after " + len
+                    + " bytes before a complete response frame was received");
+        }
+        return new Response(Arrays.copyOf(buffer, len), !eof);
+    }
+
+    private static class Response {
+        private final byte[] data;
+        private final boolean reusable;
+
+        Response(byte[] data, boolean reusable) {
+            this.data = data;
+            this.reusable = reusable;
         }
     }
 
@@ -96,18 +319,72 @@ public class TbTcpClient {
      * TbMsgDataType.
      */
     public String sendRequest(String payload, TbMsgDataType dataType, TbMsgDataType responseType) throws IOException {
-        byte[] payloadBytes;
-        if (dataType == null || "TEXT".equalsIgnoreCase(dataType.name())) {
-            payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
-        } else if ("BINARY".equalsIgnoreCase(dataType.name())) {
-            payloadBytes = java.util.Base64.getDecoder().decode(payload);
-        } else if ("JSON".equalsIgnoreCase(dataType.name())) {
-            payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
-        } else {
-            payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        byte[] response = sendRequest(encodePayload(payload, dataType));
+        return wrapResponse(response, responseType);
+    }
+
+    /**
+     * Sends a string payload on the given executor. The returned future completes
+     * with the same value as {@link #sendRequest(String, TbMsgDataType, TbMsgDataType)}
+     * or exceptionally with the I/O error. With a pipeline set the request is
+     * written on a persistent connection and the executor is not used.
+     */
+    public CompletableFuture<String> sendRequestAsync(String payload, TbMsgDataType dataType,
+            TbMsgDataType responseType, Executor executor) {
+        if (pipeline != null) {
+            byte[] payloadBytes;
+            try {
+                payloadBytes = encodePayload(payload, dataType);
+            } catch (IllegalArgumentException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            if (trace != null) {
+                trace.bytesOut += payloadBytes.length;
+            }
+            return pipeline.send(endpointKey, this::openConnection, payloadBytes)
+                    .thenApply(response -> {
+                        if (trace != null) {
+                            trace.bytesIn += response.length;
+                        }
+                        return wrapResponse(response, responseType);
+                    });
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return sendRequest(payload, dataType, responseType);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Encodes the payload string according to the TbMsgDataType.
+     */
+    public byte[] encodePayload(String payload, TbMsgDataType dataType) {
+        return TbTcpCodec.encodePayload(payload, dataType);
+    }
+
+    /**
+     * Wraps the decoded response into the {@code {"response":...}} message data,
+     * or decodes it into telemetry when a response decoder is set.
+     */
+    public String wrapResponse(byte[] response, TbMsgDataType responseType) {
+        if (responseDecoder != null) {
+            return responseDecoder.decode(response);
+        }
+        return TbTcpCodec.wrapResponse(response, responseType);
+    }
+
+    /**
+     * Same as {@link #wrapResponse(byte[], TbMsgDataType)} for the remaining
+     * bytes of the buffer.
+     */
+    public String wrapResponse(ByteBuffer response, TbMsgDataType responseType) {
+        if (responseDecoder != null) {
+            return responseDecoder.decode(response);
         }
-        byte[] response = sendRequest(payloadBytes);
-        return "{\"response\":\"" + decodeResponse(response, responseType) + "\"}";
+        return TbTcpCodec.wrapResponse(response, responseType);
     }
 
     /**
@@ -0,0 +1,177 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.thingsboard.server.common.msg.TbMsgDataType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+/**
+ * Streaming codec for the TCP node message data: pulls the {@code payload}
+ * field out of the incoming message and writes the {@code {"response":...}}
+ * envelope without building a Jackson tree.
+ */
+public final class TbTcpCodec {
+
+    static final String PAYLOAD_FIELD = "payload";
+    static final String RESPONSE_FIELD = "response";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private TbTcpCodec() {
+    }
+
+    /**
+     * Returns the text of the top-level {@code payload} field, or {@code null} when
+     * the data is empty, not an object or has no such field. Object and array
+     * values are returned as JSON text.
+     *
+     * @throws IOException if the data is not valid JSON
+     */
+    public static String extractPayload(String data) throws IOException {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!PAYLOAD_FIELD.equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                    StringWriter writer = new StringWriter();
+                    try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+                        generator.copyCurrentStructure(parser);
+                    }
+                    return writer.toString();
+                }
+                return parser.getText();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Encodes the payload string according to the TbMsgDataType.
+     */
+    public static byte[] encodePayload(String payload, TbMsgDataType dataType) {
+        if (dataType == TbMsgDataType.BINARY) {
+            return Base64.getDecoder().decode(payload);
+        }
+        return payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the {@code {"response":...}} envelope. Text is escaped, binary is
+     * Base64 encoded straight from the response bytes and a valid JSON response is
+     * embedded as a JSON value.
+     */
+    public static String wrapResponse(byte[] response, TbMsgDataType responseType) {
+        StringWriter writer = new StringWriter(response.length + 32);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeFieldName(RESPONSE_FIELD);
+            if (responseType == TbMsgDataType.BINARY) {
+                generator.writeBinary(response);
+            } else {
+                String text = new String(response, StandardCharsets.UTF_8);
+                if (responseType == TbMsgDataType.JSON && isJson(text)) {
+                    generator.writeRawValue(text);
+                } else {
+                    generator.writeString(text);
+                }
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // StringWriter does not throw
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Same as {@link #wrapResponse(byte[], TbMsgDataType)} for the remaining
+     * bytes of the buffer, which may be a direct buffer. Binary responses are
+     * Base64 encoded straight from the buffer, text is decoded once. The buffer
+     * position is not changed.
+     */
+    public static String wrapResponse(ByteBuffer response, TbMsgDataType responseType) {
+        int length = response.remaining();
+        StringWriter writer = new StringWriter(length + 32);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeFieldName(RESPONSE_FIELD);
+            if (responseType == TbMsgDataType.BINARY) {
+                generator.writeBinary(new ByteBufferBackedInputStream(response.duplicate()), length);
+            } else {
+                CharBuffer text = StandardCharsets.UTF_8.decode(response.duplicate());
+                char[] chars = text.array();
+                int offset = text.arrayOffset() + text.position();
+                if (responseType == TbMsgDataType.JSON && isJson(chars, offset, text.remaining())) {
+                    generator.writeRawValue(chars, offset, text.remaining());
+                } else {
+                    generator.writeString(chars, offset, text.remaining());
+                }
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // StringWriter and the buffer stream do not throw
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    private static boolean isJson(char[] text, int offset, int length) {
+        try (JsonParser parser = JSON_FACTORY.createParser(text, offset, length)) {
+            return isJson(parser);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isJson(String text) {
+        try (JsonParser parser = JSON_FACTORY.createParser(text)) {
+            return isJson(parser);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isJson(JsonParser parser) throws IOException {
+        if (parser.nextToken() == null) {
+            return false;
+        }
+        parser.skipChildren();
+        return parser.nextToken() == null;
+    }
+}
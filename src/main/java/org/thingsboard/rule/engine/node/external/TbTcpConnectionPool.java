@@ -0,0 +1,326 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keep-alive pool of TCP/TLS sockets owned by a single {@link TbSendToTcpNode}.
+ * Sockets are keyed by endpoint (host, port and TLS identity), limited per
+ * endpoint and closed after being idle for longer than the idle timeout.
+ * Endpoints without idle or borrowed connections are dropped by the same
+ * eviction task, so templated hosts don't accumulate.
+ */
+@Slf4j
+public class TbTcpConnectionPool {
+
+    /**
+     * Opens a new connection for an endpoint.
+     */
+    public interface SocketOpener {
+        Connection open() throws IOException;
+    }
+
+    /**
+     * All connections of the endpoint are borrowed. This is local back-pressure,
+     * not a failure of the endpoint.
+     */
+    public static class PoolExhaustedException extends IOException {
+        public PoolExhaustedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Socket borrowed from the pool. {@code reused} is set when the socket was
+     * taken from the idle queue instead of being freshly opened. A TLS socket is
+     * layered over a plain {@code transport} socket, which is probed for
+     * unsolicited bytes before reuse.
+     */
+    public static class Connection {
+        private final Socket socket;
+        private final Socket transport;
+        private final boolean reused;
+        private Endpoint endpoint;
+        private long lastUsed;
+
+        public Connection(Socket socket, Socket transport) {
+            this(socket, transport, false);
+        }
+
+        Connection(Socket socket, Socket transport, boolean reused) {
+            this.socket = socket;
+            this.transport = transport;
+            this.reused = reused;
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        public Socket getSocket() {
+            return socket;
+        }
+
+        public boolean isReused() {
+            return reused;
+        }
+    }
+
+    private static class Endpoint {
+        private final Semaphore permits;
+        private final Deque<Connection> idle = new ArrayDeque<>();
+        // guarded by idle, set once the endpoint is dropped from the map
+        private boolean removed;
+
+        Endpoint(int maxConnections) {
+            this.permits = new Semaphore(maxConnections);
+        }
+    }
+
+    private final int maxConnectionsPerEndpoint;
+    private final long idleTimeoutMs;
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictionExecutor;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private volatile boolean closed;
+
+    public TbTcpConnectionPool(String name, int maxConnectionsPerEndpoint, long idleTimeoutMs) {
+        this.maxConnectionsPerEndpoint = maxConnectionsPerEndpoint;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.evictionExecutor = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName(name));
+        long period = Math.max(idleTimeoutMs / 2, 1000);
+        this.evictionExecutor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public static String key(String host, int port, String tlsIdentity) {
+        return tlsIdentity != null ? host + ":" + port + "#" + tlsIdentity : host + ":" + port;
+    }
+
+    /**
+     * Returns an idle healthy connection for the endpoint or opens a new one. Waits
+     * up to {@code waitMs} when the endpoint already has the maximum number of
+     * connections borrowed.
+     *
+     * @throws PoolExhaustedException if no connection became available in time
+     */
+    public Connection borrow(String key, SocketOpener opener, long waitMs) throws IOException {
+        if (closed) {
+            throw new IOException("TCP connection pool is closed");
+        }
+        Endpoint endpoint = acquire(key, waitMs);
+        try {
+            Connection connection;
+            while ((connection = pollIdle(endpoint)) != null) {
+                if (isHealthy(connection)) {
+                    hits.incrementAndGet();
+                    Connection reused = new Connection(connection.socket, connection.transport, true);
+                    reused.endpoint = endpoint;
+                    return reused;
+                }
+                closeQuietly(connection.socket);
+            }
+            misses.incrementAndGet();
+            Connection opened = opener.open();
+            openConnections.incrementAndGet();
+            opened.endpoint = endpoint;
+            return opened;
+        } catch (IOException | RuntimeException e) {
+            endpoint.permits.release();
+            throw e;
+        }
+    }
+
+    private Endpoint acquire(String key, long waitMs) throws IOException {
+        while (true) {
+            Endpoint endpoint = endpoints.computeIfAbsent(key, k -> new Endpoint(maxConnectionsPerEndpoint));
+            try {
+                if (!endpoint.permits.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+                    throw new PoolExhaustedException("Max connections per endpoint reached for " + key);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a pooled connection to " + key, e);
+            }
+            synchronized (endpoint.idle) {
+                if (!endpoint.removed) {
+                    return endpoint;
+                }
+            }
+            // Dropped by the eviction task in the meantime, start over with a new entry
+            endpoint.permits.release();
+        }
+    }
+
+    /**
+     * Returns a borrowed connection. Connections that are not reusable (closed by
+     * the peer, failed or left with unread data) are closed.
+     */
+    public void release(String key, Connection connection, boolean reusable) {
+        Endpoint endpoint = connection.endpoint;
+        if (endpoint == null) {
+            closeQuietly(connection.socket);
+            return;
+        }
+        boolean pooled = false;
+        if (reusable && !closed && !connection.socket.isClosed()) {
+            connection.lastUsed = System.currentTimeMillis();
+            synchronized (endpoint.idle) {
+                if (!endpoint.removed) {
+                    endpoint.idle.addFirst(connection);
+                    pooled = true;
+                }
+            }
+        }
+        if (!pooled) {
+            closeQuietly(connection.socket);
+        }
+        endpoint.permits.release();
+    }
+
+    /**
+     * Closes all idle connections of the endpoint, e.g. after a pooled connection
+     * turned out to be stale because the peer restarted.
+     */
+    public void invalidate(String key) {
+        Endpoint endpoint = endpoints.get(key);
+        if (endpoint == null) {
+            return;
+        }
+        Connection connection;
+        while ((connection = pollIdle(endpoint)) != null) {
+            closeQuietly(connection.socket);
+        }
+    }
+
+    /**
+     * Closes connections idle for longer than the idle timeout and drops the
+     * endpoints left without idle or borrowed connections.
+     */
+    void evictIdle() {
+        long deadline = System.currentTimeMillis() - idleTimeoutMs;
+        endpoints.forEach((key, endpoint) -> {
+            synchronized (endpoint.idle) {
+                Iterator<Connection> it = endpoint.idle.iterator();
+                while (it.hasNext()) {
+                    Connection connection = it.next();
+                    if (connection.lastUsed < deadline || connection.socket.isClosed()) {
+                        it.remove();
+                        evicted.incrementAndGet();
+                        closeQuietly(connection.socket);
+                    }
+                }
+                if (endpoint.idle.isEmpty() && endpoint.permits.availablePermits() == maxConnectionsPerEndpoint) {
+                    endpoint.removed = true;
+                    endpoints.remove(key, endpoint);
+                }
+            }
+        });
+        log.debug("TCP connection pool: endpoints [{}], open [{}], hits [{}], misses [{}], evicted [{}]",
+                endpoints.size(), openConnections.get(), hits.get(), misses.get(), evicted.get());
+    }
+
+    public void close() {
+        closed = true;
+        evictionExecutor.shutdownNow();
+        endpoints.forEach((key, endpoint) -> {
+            invalidate(key);
+            synchronized (endpoint.idle) {
+                endpoint.removed = true;
+            }
+        });
+        endpoints.clear();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    public int getEndpointCount() {
+        return endpoints.size();
+    }
+
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    public int getIdleConnections() {
+        int idle = 0;
+        for (Endpoint endpoint : endpoints.values()) {
+            synchronized (endpoint.idle) {
+                idle += endpoint.idle.size();
+            }
+        }
+        return idle;
+    }
+
+    private Connection pollIdle(Endpoint endpoint) {
+        synchronized (endpoint.idle) {
+            return endpoint.idle.pollFirst();
+        }
+    }
+
+    private boolean isHealthy(Connection connection) {
+        Socket socket = connection.socket;
+        if (socket.isClosed() || !socket.isConnected() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - connection.lastUsed > idleTimeoutMs) {
+            return false;
+        }
+        try {
+            // Unsolicited bytes mean the previous response was not fully consumed or
+            // the peer sent an alert. Probe the plain transport, available() of a
+            // TLS socket only counts already decrypted bytes.
+            return connection.transport.getInputStream().available() == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (Exception ignored) {
+        }
+        openConnections.decrementAndGet();
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and request latency of one {@code host:port} endpoint.
+ */
+public class TbTcpEndpointStatistics {
+
+    private final String endpoint;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final TbLatencyHistogram latency = new TbLatencyHistogram();
+
+    public TbTcpEndpointStatistics(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(TbTcpTrace trace, boolean failed, boolean timeout) {
+        requests.increment();
+        if (failed) {
+            failures.increment();
+        }
+        if (timeout) {
+            timeouts.increment();
+        }
+        bytesIn.add(trace.bytesIn);
+        bytesOut.add(trace.bytesOut);
+        latency.record(trace.totalNanos);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public TbLatencySnapshot getLatency() {
+        return latency.snapshot();
+    }
+
+}
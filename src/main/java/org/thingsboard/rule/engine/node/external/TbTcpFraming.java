@@ -0,0 +1,333 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Response framing compiled from {@link TbSendToTcpNodeConfiguration.FramingConfig}.
+ * Tells the client when a complete response frame has been received so it can
+ * return without waiting for EOF or the read timeout.
+ */
+public class TbTcpFraming {
+
+    public enum Type {
+        /**
+         * Read until EOF or read timeout
+         */
+        NONE,
+        FIXED_LENGTH,
+        LENGTH_PREFIXED,
+        DELIMITER
+    }
+
+    public static final TbTcpFraming NONE = new TbTcpFraming(Type.NONE, 0, 0, 0, false, 0, null, false, 0);
+
+    private final Type type;
+    private final int fixedLength;
+    private final int lengthFieldOffset;
+    private final int lengthFieldSize;
+    private final boolean littleEndian;
+    private final int lengthAdjustment;
+    private final byte[] delimiter;
+    private final boolean stripFraming;
+    private final int maxFrameBytes;
+
+    TbTcpFraming(Type type, int fixedLength, int lengthFieldOffset, int lengthFieldSize, boolean littleEndian,
+            int lengthAdjustment, byte[] delimiter, boolean stripFraming, int maxFrameBytes) {
+        this.type = type;
+        this.fixedLength = fixedLength;
+        this.lengthFieldOffset = lengthFieldOffset;
+        this.lengthFieldSize = lengthFieldSize;
+        this.littleEndian = littleEndian;
+        this.lengthAdjustment = lengthAdjustment;
+        this.delimiter = delimiter;
+        this.stripFraming = stripFraming;
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    /**
+     * Validates the configuration and compiles it. Missing configuration means
+     * {@link Type#NONE} without a size limit.
+     */
+    public static TbTcpFraming fromConfig(TbSendToTcpNodeConfiguration.FramingConfig config) {
+        if (config == null) {
+            return NONE;
+        }
+        Type type = config.getType() != null ? Type.valueOf(config.getType().toUpperCase()) : Type.NONE;
+        int maxFrameBytes = Math.max(config.getMaxFrameBytes(), 0);
+        switch (type) {
+            case FIXED_LENGTH:
+                if (config.getFixedLength() <= 0) {
+                    throw new IllegalArgumentException("Fixed length framing requires a positive length");
+                }
+                break;
+            case LENGTH_PREFIXED:
+                int size = config.getLengthFieldSize();
+                if (size != 1 && size != 2 && size != 4) {
+                    throw new IllegalArgumentException("Length field size must be 1, 2 or 4 bytes: " + size);
+                }
+                if (config.getLengthFieldOffset() < 0) {
+                    throw new IllegalArgumentException("Length field offset must not be negative");
+                }
+                break;
+            case DELIMITER:
+                if (config.getDelimiter() == null || config.getDelimiter().isEmpty()) {
+                    throw new IllegalArgumentException("Delimiter framing requires a delimiter");
+                }
+                break;
+            default:
+                break;
+        }
+        boolean littleEndian = "LITTLE_ENDIAN".equalsIgnoreCase(config.getByteOrder());
+        byte[] delimiter = type == Type.DELIMITER ? parseDelimiter(config.getDelimiter()) : null;
+        return new TbTcpFraming(type, config.getFixedLength(), config.getLengthFieldOffset(),
+                config.getLengthFieldSize(), littleEndian, config.getLengthAdjustment(), delimiter,
+                config.isStripFraming(), maxFrameBytes);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public boolean isNone() {
+        return type == Type.NONE;
+    }
+
+    public int getMaxFrameBytes() {
+        return maxFrameBytes;
+    }
+
+    /**
+     * Returns the length of the complete frame at the start of {@code buf[0, len)}
+     * or -1 when more bytes are needed.
+     *
+     * @throws IOException if the frame is malformed or exceeds the size limit
+     */
+    public int frameLength(byte[] buf, int len) throws IOException {
+        return frameLength(buf, len, 0);
+    }
+
+    /**
+     * Same as {@link #frameLength(byte[], int)}, searching the delimiter from
+     * {@code scanFrom} on. Pass {@link #resumeScanAt(int)} of the previous length
+     * while the same frame is being read, 0 for a new frame.
+     */
+    public int frameLength(byte[] buf, int len, int scanFrom) throws IOException {
+        switch (type) {
+            case FIXED_LENGTH:
+                return complete(len, fixedLength);
+            case LENGTH_PREFIXED:
+                if (len < lengthFieldOffset + lengthFieldSize) {
+                    return incomplete(len);
+                }
+                return complete(len, prefixedFrameLength(readLength(buf, lengthFieldOffset)));
+            case DELIMITER:
+                int idx = indexOf(buf, scanFrom, len, delimiter);
+                return idx < 0 ? incomplete(len) : complete(len, idx + delimiter.length);
+            default:
+                return incomplete(len);
+        }
+    }
+
+    /**
+     * Same as {@link #frameLength(byte[], int)} for the bytes at absolute
+     * positions {@code [0, len)} of the buffer.
+     */
+    public int frameLength(ByteBuffer buf, int len) throws IOException {
+        return frameLength(buf, len, 0);
+    }
+
+    /**
+     * Same as {@link #frameLength(byte[], int, int)} for the bytes at absolute
+     * positions {@code [0, len)} of the buffer.
+     */
+    public int frameLength(ByteBuffer buf, int len, int scanFrom) throws IOException {
+        switch (type) {
+            case FIXED_LENGTH:
+                return complete(len, fixedLength);
+            case LENGTH_PREFIXED:
+                if (len < lengthFieldOffset + lengthFieldSize) {
+                    return incomplete(len);
+                }
+                return complete(len, prefixedFrameLength(readLength(buf, lengthFieldOffset)));
+            case DELIMITER:
+                int idx = indexOf(buf, scanFrom, len, delimiter);
+                return idx < 0 ? incomplete(len) : complete(len, idx + delimiter.length);
+            default:
+                return incomplete(len);
+        }
+    }
+
+    /**
+     * Position from which the delimiter search continues once more bytes arrive
+     * after {@code len} bytes held no complete frame. A delimiter may start in the
+     * last {@code delimiter.length - 1} bytes already read.
+     */
+    public int resumeScanAt(int len) {
+        return type == Type.DELIMITER ? Math.max(0, len - delimiter.length + 1) : 0;
+    }
+
+    private int incomplete(int len) throws IOException {
+        checkLimit(len);
+        return -1;
+    }
+
+    private int complete(int len, int frameLength) throws IOException {
+        checkLimit(frameLength);
+        return len >= frameLength ? frameLength : -1;
+    }
+
+    private int prefixedFrameLength(long value) throws IOException {
+        int headerLength = lengthFieldOffset + lengthFieldSize;
+        long total = headerLength + value + lengthAdjustment;
+        if (total < headerLength || total > Integer.MAX_VALUE) {
+            throw new IOException("Invalid response frame length: " + value);
+        }
+        return (int) total;
+    }
+
+    /**
+     * Copies the frame out of the read buffer, removing the length header or
+     * delimiter when configured.
+     */
+    public byte[] extract(byte[] buf, int frameLength) {
+        if (stripFraming) {
+            if (type == Type.LENGTH_PREFIXED) {
+                return Arrays.copyOfRange(buf, lengthFieldOffset + lengthFieldSize, frameLength);
+            } else if (type == Type.DELIMITER) {
+                return Arrays.copyOf(buf, frameLength - delimiter.length);
+            }
+        }
+        return Arrays.copyOf(buf, frameLength);
+    }
+
+    private void checkLimit(int length) throws IOException {
+        if (maxFrameBytes > 0 && length > maxFrameBytes) {
+            throw new IOException("Response exceeds max frame size of " + maxFrameBytes + " bytes");
+        }
+    }
+
+    /**
+     * Returns a view of the frame at the start of the buffer, without the length
+     * header or delimiter when configured. The bytes are not copied.
+     */
+    public ByteBuffer frame(ByteBuffer buf, int frameLength) {
+        if (stripFraming) {
+            if (type == Type.LENGTH_PREFIXED) {
+                int headerLength = lengthFieldOffset + lengthFieldSize;
+                return buf.slice(headerLength, frameLength - headerLength);
+            } else if (type == Type.DELIMITER) {
+                return buf.slice(0, frameLength - delimiter.length);
+            }
+        }
+        return buf.slice(0, frameLength);
+    }
+
+    private long readLength(byte[] buf, int offset) {
+        long value = 0;
+        for (int i = 0; i < lengthFieldSize; i++) {
+            int b = buf[offset + (littleEndian ? lengthFieldSize - 1 - i : i)] & 0xFF;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    private long readLength(ByteBuffer buf, int offset) {
+        long value = 0;
+        for (int i = 0; i < lengthFieldSize; i++) {
+            int b = buf.get(offset + (littleEndian ? lengthFieldSize - 1 - i : i)) & 0xFF;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    private static int indexOf(byte[] buf, int from, int len, byte[] pattern) {
+        outer:
+        for (int i = from; i <= len - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buf[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static int indexOf(ByteBuffer buf, int from, int len, byte[] pattern) {
+        outer:
+        for (int i = from; i <= len - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buf.get(i + j) != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a delimiter given either as hex ({@code 0x03}, {@code 0x0D0A}) or as
+     * text with {@code \n}, {@code \r}, {@code \t}, {@code \\} and {@code \xHH}
+     * escapes.
+     */
+    static byte[] parseDelimiter(String value) {
+        if (value.matches("0[xX]([0-9a-fA-F]{2})+")) {
+            byte[] result = new byte[(value.length() - 2) / 2];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = (byte) Integer.parseInt(value.substring(2 + i * 2, 4 + i * 2), 16);
+            }
+            return result;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                switch (next) {
+                    case 'n':
+                        out.write('\n');
+                        break;
+                    case 'r':
+                        out.write('\r');
+                        break;
+                    case 't':
+                        out.write('\t');
+                        break;
+                    case 'x':
+                        if (i + 2 >= value.length()) {
+                            throw new IllegalArgumentException("Invalid delimiter escape: " + value);
+                        }
+                        out.write(Integer.parseInt(value.substring(i + 1, i + 3), 16));
+                        i += 2;
+                        break;
+                    default:
+                        out.write(next);
+                }
+            } else {
+                byte[] bytes = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                out.write(bytes, 0, bytes.length);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.lang.management.ManagementFactory;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.net.ssl.SSLHandshakeException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Metrics of one TCP request node instance: request outcome counters, bytes,
+ * in-flight gauge, per phase latency histograms and per endpoint statistics,
+ * published as an MXBean on the platform MBean server.
+ */
+@Slf4j
+public class TbTcpMetrics implements TbTcpMetricsMXBean {
+
+    static final String JMX_DOMAIN = "org.thingsboard.rule.engine.node";
+    private static final AtomicLong INSTANCES = new AtomicLong();
+    private static final int MAX_ENDPOINTS = 256;
+
+    private final TbSslContextCache sslContextCache;
+    private final TbTcpConnectionPool connectionPool;
+    private final TbTcpCircuitBreaker circuitBreaker;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder parseFailures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder circuitOpen = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final TbLatencyHistogram resolveLatency = new TbLatencyHistogram();
+    private final TbLatencyHistogram tlsContextLatency = new TbLatencyHistogram();
+    private final TbLatencyHistogram connectLatency = new TbLatencyHistogram();
+    private final TbLatencyHistogram handshakeLatency = new TbLatencyHistogram();
+    private final TbLatencyHistogram writeLatency = new TbLatencyHistogram();
+    private final TbLatencyHistogram firstByteLatency = new TbLatencyHistogram();
+    private final TbLatencyHistogram totalLatency = new TbLatencyHistogram();
+
+    private final Cache<String, TbTcpEndpointStatistics> endpoints = CacheBuilder.newBuilder()
+            .maximumSize(MAX_ENDPOINTS)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    private ObjectName objectName;
+
+    public TbTcpMetrics(TbSslContextCache sslContextCache, TbTcpConnectionPool connectionPool,
+            TbTcpCircuitBreaker circuitBreaker) {
+        this.sslContextCache = sslContextCache;
+        this.connectionPool = connectionPool;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Registers the MXBean as
+     * {@code org.thingsboard.rule.engine.node:type=TbSendToTcpNode,name=<name>,instance=<n>}. The
+     * instance key keeps the beans of an old and a new instance of the node apart
+     * while it is re-initialized, so that neither unregisters the other.
+     */
+    public void register(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=TbSendToTcpNode,name=" + ObjectName.quote(name)
+                    + ",instance=" + INSTANCES.incrementAndGet());
+            this.objectName = server.registerMBean(this, objectName).getObjectName();
+        } catch (Exception e) {
+            log.warn("Failed to register TCP node metrics [{}]", name, e);
+        }
+    }
+
+    public void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            log.debug("Failed to unregister TCP node metrics [{}]", objectName, e);
+        }
+        objectName = null;
+    }
+
+    void recordResolve(long nanos) {
+        resolveLatency.record(nanos);
+    }
+
+    void recordTlsContext(long nanos) {
+        tlsContextLatency.record(nanos);
+    }
+
+    void recordParseFailure() {
+        parseFailures.increment();
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    void recordCircuitOpen() {
+        circuitOpen.increment();
+    }
+
+    void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Records the outcome of a request started with {@link #requestStarted()}.
+     */
+    void requestCompleted(String endpoint, TbTcpTrace trace, Throwable error) {
+        inFlight.decrementAndGet();
+        requests.increment();
+        bytesIn.add(trace.bytesIn);
+        bytesOut.add(trace.bytesOut);
+        recordIfPresent(connectLatency, trace.connectNanos);
+        recordIfPresent(handshakeLatency, trace.handshakeNanos);
+        recordIfPresent(writeLatency, trace.writeNanos);
+        recordIfPresent(firstByteLatency, trace.firstByteNanos);
+        totalLatency.record(trace.totalNanos);
+        boolean timeout = false;
+        if (error == null) {
+            successes.increment();
+        } else {
+            failures.increment();
+            if (error instanceof IllegalArgumentException) {
+                parseFailures.increment();
+            } else if (error instanceof TbTcpConnectionPool.PoolExhaustedException) {
+                rejected.increment();
+            } else if (error instanceof SocketTimeoutException && trace.connected) {
+                timeout = true;
+                timeouts.increment();
+            } else if (isConnectFailure(error, trace)) {
+                connectFailures.increment();
+            }
+        }
+        try {
+            endpoints.get(endpoint, () -> new TbTcpEndpointStatistics(endpoint)).record(trace, error != null, timeout);
+        } catch (ExecutionException e) {
+            // the loader does not throw
+        }
+    }
+
+    private static boolean isConnectFailure(Throwable error, TbTcpTrace trace) {
+        return error instanceof ConnectException || error instanceof UnknownHostException
+                || error instanceof NoRouteToHostException || error instanceof SSLHandshakeException
+                || (error instanceof SocketTimeoutException && !trace.connected);
+    }
+
+    private static void recordIfPresent(TbLatencyHistogram histogram, long nanos) {
+        if (nanos > 0) {
+            histogram.record(nanos);
+        }
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getConnectFailures() {
+        return connectFailures.sum();
+    }
+
+    @Override
+    public long getParseFailures() {
+        return parseFailures.sum();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getCircuitOpenRejections() {
+        return circuitOpen.sum();
+    }
+
+    @Override
+    public long getOpenCircuits() {
+        return circuitBreaker != null ? circuitBreaker.getOpenCircuits() : 0;
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public TbLatencySnapshot getResolveLatency() {
+        return resolveLatency.snapshot();
+    }
+
+    @Override
+    public TbLatencySnapshot getTlsContextLatency() {
+        return tlsContextLatency.snapshot();
+    }
+
+    @Override
+    public TbLatencySnapshot getConnectLatency() {
+        return connectLatency.snapshot();
+    }
+
+    @Override
+    public TbLatencySnapshot getHandshakeLatency() {
+        return handshakeLatency.snapshot();
+    }
+
+    @Override
+    public TbLatencySnapshot getWriteLatency() {
+        return writeLatency.snapshot();
+    }
+
+    @Override
+    public TbLatencySnapshot getFirstByteLatency() {
+        return firstByteLatency.snapshot();
+    }
+
+    @Override
+    public TbLatencySnapshot getTotalLatency() {
+        return totalLatency.snapshot();
+    }
+
+    @Override
+    public List<TbTcpEndpointStatistics> getEndpoints() {
+        return new ArrayList<>(endpoints.asMap().values());
+    }
+
+    @Override
+    public long getPoolHits() {
+        return connectionPool != null ? connectionPool.getHitCount() : 0;
+    }
+
+    @Override
+    public long getPoolMisses() {
+        return connectionPool != null ? connectionPool.getMissCount() : 0;
+    }
+
+    @Override
+    public long getPoolEvictions() {
+        return connectionPool != null ? connectionPool.getEvictedCount() : 0;
+    }
+
+    @Override
+    public int getPoolOpenConnections() {
+        return connectionPool != null ? connectionPool.getOpenConnections() : 0;
+    }
+
+    @Override
+    public int getPoolIdleConnections() {
+        return connectionPool != null ? connectionPool.getIdleConnections() : 0;
+    }
+
+    @Override
+    public long getSslContextCacheHits() {
+        return sslContextCache.getHitCount();
+    }
+
+    @Override
+    public long getSslContextCacheMisses() {
+        return sslContextCache.getMissCount();
+    }
+
+    @Override
+    public double getSslContextAverageBuildTimeMs() {
+        return sslContextCache.getAverageBuildTimeMs();
+    }
+
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.util.List;
+
+/**
+ * JMX view of the metrics of a TCP request node. Latencies are in microseconds.
+ */
+public interface TbTcpMetricsMXBean {
+
+    long getRequests();
+
+    long getSuccesses();
+
+    long getFailures();
+
+    long getTimeouts();
+
+    long getConnectFailures();
+
+    long getParseFailures();
+
+    long getRejected();
+
+    long getCircuitOpenRejections();
+
+    long getOpenCircuits();
+
+    int getInFlight();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    TbLatencySnapshot getResolveLatency();
+
+    TbLatencySnapshot getTlsContextLatency();
+
+    TbLatencySnapshot getConnectLatency();
+
+    TbLatencySnapshot getHandshakeLatency();
+
+    TbLatencySnapshot getWriteLatency();
+
+    TbLatencySnapshot getFirstByteLatency();
+
+    TbLatencySnapshot getTotalLatency();
+
+    List<TbTcpEndpointStatistics> getEndpoints();
+
+    long getPoolHits();
+
+    long getPoolMisses();
+
+    long getPoolEvictions();
+
+    int getPoolOpenConnections();
+
+    int getPoolIdleConnections();
+
+    long getSslContextCacheHits();
+
+    long getSslContextCacheMisses();
+
+    double getSslContextAverageBuildTimeMs();
+
+}
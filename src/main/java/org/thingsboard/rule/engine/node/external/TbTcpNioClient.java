@@ -0,0 +1,100 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import javax.net.ssl.SSLContext;
+
+import org.thingsboard.server.common.msg.TbMsgDataType;
+
+/**
+ * {@link TbTcpClient} that runs its requests on a shared {@link TbTcpNioEngine}
+ * instead of a blocking socket. The response envelope, or the decoded telemetry,
+ * is written straight from the engine read buffer.
+ */
+public class TbTcpNioClient extends TbTcpClient {
+
+    private final TbTcpNioEngine engine;
+    private final String endpointKey;
+    private final SSLContext sslContext;
+
+    /**
+     * @param endpointKey key of the idle connections this request may reuse
+     * @param sslContext  TLS context, {@code null} for plain TCP
+     */
+    public TbTcpNioClient(TbTcpNioEngine engine, String endpointKey, String host, int port, SSLContext sslContext,
+            int connectTimeoutMs, int readTimeoutMs) {
+        super(host, port, sslContext != null, null, connectTimeoutMs, readTimeoutMs);
+        this.engine = engine;
+        this.endpointKey = endpointKey;
+        this.sslContext = sslContext;
+    }
+
+    @Override
+    public byte[] sendRequest(byte[] payload) throws IOException {
+        return await(send(payload, response -> {
+            byte[] bytes = new byte[response.remaining()];
+            response.get(bytes);
+            return bytes;
+        }));
+    }
+
+    @Override
+    public String sendRequest(String payload, TbMsgDataType dataType, TbMsgDataType responseType) throws IOException {
+        return await(send(encodePayload(payload, dataType), response -> wrapResponse(response, responseType)));
+    }
+
+    /**
+     * The executor is not used, the future completes on an engine selector
+     * thread.
+     */
+    @Override
+    public CompletableFuture<String> sendRequestAsync(String payload, TbMsgDataType dataType,
+            TbMsgDataType responseType, Executor executor) {
+        byte[] payloadBytes;
+        try {
+            payloadBytes = encodePayload(payload, dataType);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return send(payloadBytes, response -> wrapResponse(response, responseType));
+    }
+
+    private <T> CompletableFuture<T> send(byte[] payload, Function<ByteBuffer, T> decoder) {
+        return engine.send(endpointKey, this::address, sslContext, payload, framing, connectTimeoutMs, readTimeoutMs,
+                retryStaleConnection, trace, decoder);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
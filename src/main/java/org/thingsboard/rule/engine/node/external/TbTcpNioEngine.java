@@ -0,0 +1,899 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Non-blocking request engine. Requests of all messages are multiplexed over a
+ * few selector threads with {@link SocketChannel}s, TLS runs on an
+ * {@link SSLEngine}. Responses are read into pooled direct buffers and the
+ * decoder gets a view of the response frame, so the bytes are not copied
+ * before decoding. Buffers are only held while a request is writing or reading,
+ * connections waiting for a reply or idle in the keep-alive pool hold none.
+ * <p>
+ * Timeouts follow {@link TbTcpClient}: the read timeout is the allowed silence
+ * between two reads and, without framing, ends the response when some data was
+ * received.
+ */
+@Slf4j
+public class TbTcpNioEngine {
+
+    static final int BUFFER_SIZE = 32 * 1024;
+    /**
+     * Largest response read without framing or without a max frame size.
+     */
+    static final int MAX_RESPONSE_BYTES = 16 * 1024 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 256;
+    // larger buffers are grown on the heap, direct memory stays bounded by the pool
+    private static final int MAX_DIRECT_BUFFER_SIZE = 4 * BUFFER_SIZE;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private enum Phase {
+        CONNECTING, HANDSHAKING, WRITING, READING, IDLE, CLOSED
+    }
+
+    private final Loop[] loops;
+    // Host names are resolved here, a slow DNS server must not stall a selector thread
+    private final ExecutorService resolver;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private final int maxIdlePerEndpoint;
+    private final long idleTimeoutMs;
+    private volatile boolean closed;
+
+    /**
+     * @param threads            number of selector threads
+     * @param maxIdlePerEndpoint connections kept open per endpoint after a
+     *                           complete response, 0 closes every connection
+     * @param idleTimeoutMs      idle time after which a kept connection is closed
+     */
+    public TbTcpNioEngine(String name, int threads, int maxIdlePerEndpoint, long idleTimeoutMs) throws IOException {
+        this.maxIdlePerEndpoint = maxIdlePerEndpoint;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.loops = new Loop[threads];
+        try {
+            for (int i = 0; i < threads; i++) {
+                loops[i] = new Loop();
+            }
+        } catch (IOException e) {
+            for (Loop loop : loops) {
+                if (loop != null) {
+                    loop.selector.close();
+                }
+            }
+            throw e;
+        }
+        ThreadFactory threadFactory = ThingsBoardThreadFactory.forName(name);
+        for (Loop loop : loops) {
+            threadFactory.newThread(loop).start();
+        }
+        this.resolver = Executors.newFixedThreadPool(threads, ThingsBoardThreadFactory.forName(name + "-resolver"));
+    }
+
+    /**
+     * Sends the payload to the endpoint, reusing an idle connection opened for
+     * the same key when there is one. The future completes on a selector thread
+     * with the value returned by the decoder, which must not keep the buffer.
+     *
+     * @param address    resolves the endpoint address, called on a resolver
+     *                   thread and only when a new connection is opened
+     * @param sslContext TLS context, {@code null} for plain TCP
+     * @param retryWritten resend the payload on a fresh connection when a reused
+     *                   one closes after the payload was written but before any
+     *                   response byte arrived. A payload that was not written at
+     *                   all is always resent.
+     */
+    public <T> CompletableFuture<T> send(String endpointKey, Supplier<InetSocketAddress> address, SSLContext sslContext,
+            byte[] payload, TbTcpFraming framing, int connectTimeoutMs, int readTimeoutMs, boolean retryWritten,
+            TbTcpTrace trace, Function<ByteBuffer, T> decoder) {
+        Exchange<T> exchange = new Exchange<>(endpointKey, address, sslContext, payload, framing, connectTimeoutMs,
+                readTimeoutMs, retryWritten, trace, decoder);
+        if (closed) {
+            exchange.future.completeExceptionally(new IOException("TCP client engine is closed"));
+            return exchange.future;
+        }
+        // Requests to the same endpoint share a loop so that they can reuse its idle connections
+        int idx = maxIdlePerEndpoint > 0 ? endpointKey.hashCode() : roundRobin.getAndIncrement();
+        Loop loop = loops[Math.floorMod(idx, loops.length)];
+        loop.execute(() -> loop.start(exchange));
+        return exchange.future;
+    }
+
+    public void close() {
+        closed = true;
+        for (Loop loop : loops) {
+            loop.shutdown();
+        }
+        resolver.shutdownNow();
+    }
+
+    private static final class Exchange<T> {
+        private final String endpointKey;
+        private final Supplier<InetSocketAddress> address;
+        private final SSLContext sslContext;
+        private final byte[] payload;
+        private final TbTcpFraming framing;
+        private final int connectTimeoutMs;
+        private final int readTimeoutMs;
+        private final boolean retryWritten;
+        private final TbTcpTrace trace;
+        private final Function<ByteBuffer, T> decoder;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private boolean retried;
+        private T result;
+        private Throwable error;
+
+        Exchange(String endpointKey, Supplier<InetSocketAddress> address, SSLContext sslContext, byte[] payload,
+                TbTcpFraming framing, int connectTimeoutMs, int readTimeoutMs, boolean retryWritten, TbTcpTrace trace,
+                Function<ByteBuffer, T> decoder) {
+            this.endpointKey = endpointKey;
+            this.address = address;
+            this.sslContext = sslContext;
+            this.payload = payload;
+            this.framing = framing;
+            this.connectTimeoutMs = connectTimeoutMs;
+            this.readTimeoutMs = readTimeoutMs;
+            this.retryWritten = retryWritten;
+            this.trace = trace != null ? trace : new TbTcpTrace();
+            this.decoder = decoder;
+        }
+
+        void decode(ByteBuffer frame) {
+            try {
+                result = decoder.apply(frame);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+
+        void complete() {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+
+        void fail(Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final String endpointKey;
+        private final InetSocketAddress address;
+        private SelectionKey key;
+        private SSLEngine ssl;
+        private ByteBuffer netIn;
+        private ByteBuffer netOut;
+        private ByteBuffer appIn;
+        private ByteBuffer out;
+        private Exchange<?> exchange;
+        private Phase phase;
+        private boolean reused;
+        private long phaseStart;
+        private long written;
+        // bytes of the current request written to the channel
+        private int sent;
+        // start of the delimiter search in the response read so far
+        private int scanFrom;
+        private int generation;
+
+        Connection(SocketChannel channel, String endpointKey, InetSocketAddress address) {
+            this.channel = channel;
+            this.endpointKey = endpointKey;
+            this.address = address;
+        }
+    }
+
+    private static final class Deadline implements Comparable<Deadline> {
+        private final long nanos;
+        private final Connection connection;
+        private final int generation;
+
+        Deadline(long nanos, Connection connection) {
+            this.nanos = nanos;
+            this.connection = connection;
+            this.generation = connection.generation;
+        }
+
+        @Override
+        public int compareTo(Deadline other) {
+            return Long.compare(nanos, other.nanos);
+        }
+    }
+
+    private final class Loop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        // Stale entries are skipped when polled instead of being removed
+        private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>();
+        private final Map<String, Deque<Connection>> idle = new HashMap<>();
+        private final TbTcpBufferPool buffers = new TbTcpBufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS,
+                MAX_DIRECT_BUFFER_SIZE);
+        private volatile boolean shutdown;
+        private volatile boolean terminated;
+
+        Loop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+            if (terminated) {
+                // Nobody polls the queue anymore, the tasks fail their exchanges here
+                runTasks();
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        void shutdown() {
+            shutdown = true;
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    selector.select(nextTimeoutMs());
+                    runTasks();
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        handle(key);
+                    }
+                    selector.selectedKeys().clear();
+                    expire(System.nanoTime());
+                }
+            } catch (Throwable e) {
+                log.error("TCP client engine loop failed", e);
+            } finally {
+                closeAll();
+            }
+        }
+
+        void start(Exchange<?> exchange) {
+            if (shutdown) {
+                exchange.fail(new IOException("TCP client engine is closed"));
+                return;
+            }
+            Connection connection = pollIdle(exchange.endpointKey);
+            if (connection == null) {
+                connect(exchange);
+                return;
+            }
+            connection.exchange = exchange;
+            connection.reused = true;
+            exchange.trace.connected = true;
+            try {
+                beginWrite(connection);
+            } catch (IOException | RuntimeException e) {
+                fail(connection, e);
+            }
+        }
+
+        private void connect(Exchange<?> exchange) {
+            try {
+                resolver.execute(() -> {
+                    InetSocketAddress address;
+                    try {
+                        address = exchange.address.get();
+                    } catch (RuntimeException e) {
+                        exchange.fail(e);
+                        return;
+                    }
+                    execute(() -> connect(exchange, address));
+                });
+            } catch (RejectedExecutionException e) {
+                exchange.fail(new IOException("TCP client engine is closed"));
+            }
+        }
+
+        private void connect(Exchange<?> exchange, InetSocketAddress address) {
+            if (shutdown) {
+                exchange.fail(new IOException("TCP client engine is closed"));
+                return;
+            }
+            if (address.isUnresolved()) {
+                exchange.fail(new UnknownHostException(address.getHostString()));
+                return;
+            }
+            SocketChannel channel = null;
+            Connection connection = null;
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                connection = new Connection(channel, exchange.endpointKey, address);
+                connection.exchange = exchange;
+                connection.key = channel.register(selector, 0, connection);
+                connection.phaseStart = System.nanoTime();
+                if (channel.connect(address)) {
+                    onConnected(connection);
+                } else {
+                    connection.phase = Phase.CONNECTING;
+                    interest(connection, SelectionKey.OP_CONNECT);
+                    deadline(connection, exchange.connectTimeoutMs);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (connection != null) {
+                    fail(connection, e);
+                } else {
+                    closeQuietly(channel);
+                    exchange.fail(e);
+                }
+            }
+        }
+
+        private void handle(SelectionKey key) {
+            Connection connection = (Connection) key.attachment();
+            if (!key.isValid() || connection.phase == Phase.CLOSED) {
+                return;
+            }
+            try {
+                switch (connection.phase) {
+                    case CONNECTING:
+                        if (connection.channel.finishConnect()) {
+                            onConnected(connection);
+                        }
+                        break;
+                    case HANDSHAKING:
+                        if (handshake(connection)) {
+                            onHandshake(connection);
+                        }
+                        break;
+                    case WRITING:
+                        write(connection);
+                        break;
+                    case READING:
+                        if (key.isWritable() && flush(connection)) {
+                            interest(connection, SelectionKey.OP_READ);
+                        }
+                        if (key.isReadable()) {
+                            read(connection);
+                        }
+                        break;
+                    default:
+                        // Idle connections must stay silent, EOF or unexpected data ends them
+                        close(connection);
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(connection, e);
+            }
+        }
+
+        private void onConnected(Connection connection) throws IOException {
+            Exchange<?> exchange = connection.exchange;
+            long now = System.nanoTime();
+            exchange.trace.connectNanos += now - connection.phaseStart;
+            exchange.trace.connected = true;
+            if (exchange.sslContext == null) {
+                beginWrite(connection);
+                return;
+            }
+            connection.ssl = exchange.sslContext.createSSLEngine(connection.address.getHostString(),
+                    connection.address.getPort());
+            connection.ssl.setUseClientMode(true);
+            connection.ssl.beginHandshake();
+            connection.phase = Phase.HANDSHAKING;
+            connection.phaseStart = now;
+            deadline(connection, exchange.readTimeoutMs);
+            if (handshake(connection)) {
+                onHandshake(connection);
+            }
+        }
+
+        private void onHandshake(Connection connection) throws IOException {
+            connection.exchange.trace.handshakeNanos += System.nanoTime() - connection.phaseStart;
+            releaseIfEmpty(connection);
+            beginWrite(connection);
+        }
+
+        /**
+         * Advances the TLS handshake as far as the socket allows. Returns
+         * {@code true} once it is finished and flushed.
+         */
+        private boolean handshake(Connection connection) throws IOException {
+            SSLEngine ssl = connection.ssl;
+            while (true) {
+                switch (ssl.getHandshakeStatus()) {
+                    case NEED_WRAP:
+                        if (!flush(connection)) {
+                            interest(connection, SelectionKey.OP_WRITE);
+                            return false;
+                        }
+                        wrap(connection, EMPTY);
+                        break;
+                    case NEED_UNWRAP:
+                    case NEED_UNWRAP_AGAIN:
+                        if (!flush(connection)) {
+                            interest(connection, SelectionKey.OP_WRITE);
+                            return false;
+                        }
+                        int status = unwrap(connection);
+                        if (status < 0) {
+                            throw new EOFException("Connection closed during TLS handshake");
+                        }
+                        if (status == 0) {
+                            interest(connection, SelectionKey.OP_READ);
+                            return false;
+                        }
+                        break;
+                    case NEED_TASK:
+                        runDelegatedTasks(ssl);
+                        break;
+                    default:
+                        if (!flush(connection)) {
+                            interest(connection, SelectionKey.OP_WRITE);
+                            return false;
+                        }
+                        return true;
+                }
+            }
+        }
+
+        private void beginWrite(Connection connection) throws IOException {
+            connection.out = ByteBuffer.wrap(connection.exchange.payload);
+            connection.scanFrom = 0;
+            connection.sent = 0;
+            connection.phase = Phase.WRITING;
+            connection.phaseStart = System.nanoTime();
+            deadline(connection, connection.exchange.readTimeoutMs);
+            write(connection);
+        }
+
+        private void write(Connection connection) throws IOException {
+            if (connection.ssl == null) {
+                connection.sent += connection.channel.write(connection.out);
+                if (connection.out.hasRemaining()) {
+                    interest(connection, SelectionKey.OP_WRITE);
+                    return;
+                }
+            } else {
+                while (true) {
+                    if (!flush(connection)) {
+                        interest(connection, SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    if (!connection.out.hasRemaining()) {
+                        break;
+                    }
+                    wrap(connection, connection.out);
+                }
+            }
+            Exchange<?> exchange = connection.exchange;
+            long now = System.nanoTime();
+            exchange.trace.writeNanos += now - connection.phaseStart;
+            exchange.trace.bytesOut += exchange.payload.length;
+            connection.out = null;
+            connection.written = now;
+            connection.phase = Phase.READING;
+            interest(connection, SelectionKey.OP_READ);
+            deadline(connection, exchange.readTimeoutMs);
+            if (connection.netIn != null && connection.netIn.position() > 0) {
+                read(connection);
+            }
+        }
+
+        private void read(Connection connection) throws IOException {
+            while (connection.phase == Phase.READING) {
+                ByteBuffer appIn = appIn(connection);
+                int before = appIn.position();
+                int status;
+                if (connection.ssl == null) {
+                    status = connection.channel.read(appIn);
+                } else {
+                    status = unwrap(connection);
+                    postHandshake(connection);
+                }
+                int received = connection.appIn.position() - before;
+                if (received > 0 && onData(connection, received)) {
+                    return;
+                }
+                if (status < 0) {
+                    onEof(connection);
+                    return;
+                }
+                if (status == 0) {
+                    releaseIfEmpty(connection);
+                    return;
+                }
+                if (!connection.appIn.hasRemaining()) {
+                    growAppIn(connection, 0);
+                }
+            }
+        }
+
+        // TLS 1.3 session tickets and key updates arrive between application records
+        private void postHandshake(Connection connection) throws IOException {
+            SSLEngine ssl = connection.ssl;
+            SSLEngineResult.HandshakeStatus status = ssl.getHandshakeStatus();
+            if (status == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                runDelegatedTasks(ssl);
+                status = ssl.getHandshakeStatus();
+            }
+            if (status == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                wrap(connection, EMPTY);
+                if (!flush(connection)) {
+                    interest(connection, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            }
+        }
+
+        private boolean onData(Connection connection, int received) throws IOException {
+            Exchange<?> exchange = connection.exchange;
+            ByteBuffer appIn = connection.appIn;
+            int len = appIn.position();
+            if (len == received) {
+                exchange.trace.firstByteNanos = System.nanoTime() - connection.written;
+            }
+            exchange.trace.bytesIn += received;
+            int frameLength = exchange.framing.frameLength(appIn, len, connection.scanFrom);
+            if (frameLength < 0) {
+                connection.scanFrom = exchange.framing.resumeScanAt(len);
+                deadline(connection, exchange.readTimeoutMs);
+                return false;
+            }
+            // Bytes past the frame belong to nobody, do not reuse the connection
+            boolean reusable = len == frameLength && (connection.netIn == null || connection.netIn.position() == 0);
+            complete(connection, exchange.framing.frame(appIn, frameLength), reusable);
+            return true;
+        }
+
+        private void onEof(Connection connection) throws IOException {
+            int len = connection.appIn != null ? connection.appIn.position() : 0;
+            if (len == 0) {
+                throw new EOFException("No response received from TCP server");
+            }
+            if (!connection.exchange.framing.isNone()) {
+                throw new IOException("Connection closed after " + len
+                        + " bytes before a complete response frame was received");
+            }
+            complete(connection, connection.appIn.slice(0, len), false);
+        }
+
+        private void onTimeout(Connection connection) throws IOException {
+            switch (connection.phase) {
+                case CONNECTING:
+                    throw new SocketTimeoutException("Connect timed out");
+                case HANDSHAKING:
+                    throw new SocketTimeoutException("TLS handshake timed out");
+                case WRITING:
+                    throw new SocketTimeoutException("Write timed out");
+                case READING:
+                    int len = connection.appIn != null ? connection.appIn.position() : 0;
+                    if (len == 0) {
+                        throw new SocketTimeoutException("No response received from TCP server");
+                    }
+                    if (!connection.exchange.framing.isNone()) {
+                        throw new IOException("Read timed out after " + len
+                                + " bytes before a complete response frame was received");
+                    }
+                    // No more data arrived within the read timeout, treat as end of response
+                    complete(connection, connection.appIn.slice(0, len), false);
+                    break;
+                default:
+                    close(connection);
+            }
+        }
+
+        private void complete(Connection connection, ByteBuffer frame, boolean reusable) {
+            Exchange<?> exchange = connection.exchange;
+            exchange.decode(frame);
+            connection.exchange = null;
+            buffers.release(connection.appIn);
+            connection.appIn = null;
+            if (reusable && maxIdlePerEndpoint > 0 && !shutdown) {
+                park(connection);
+            } else {
+                close(connection);
+            }
+            exchange.complete();
+        }
+
+        private void fail(Connection connection, Throwable e) {
+            Exchange<?> exchange = connection.exchange;
+            // Channels report a reset or broken pipe as a plain IOException
+            boolean stale = connection.reused && (connection.appIn == null || connection.appIn.position() == 0)
+                    && e instanceof IOException && !(e instanceof SocketTimeoutException);
+            // A request that reached the peer may have been executed, it is only resent on request
+            boolean resend = exchange != null && (connection.sent == 0 || exchange.retryWritten);
+            close(connection);
+            if (exchange == null) {
+                return;
+            }
+            if (stale && resend && !exchange.retried) {
+                // Stale keep-alive connection, the peer most likely closed it. Retry once
+                // on a fresh connection.
+                exchange.retried = true;
+                connect(exchange);
+                return;
+            }
+            exchange.fail(e);
+        }
+
+        private void park(Connection connection) {
+            Deque<Connection> connections = idle.computeIfAbsent(connection.endpointKey, k -> new ArrayDeque<>());
+            if (connections.size() >= maxIdlePerEndpoint) {
+                close(connection);
+                return;
+            }
+            connection.phase = Phase.IDLE;
+            releaseIfEmpty(connection);
+            connections.addLast(connection);
+            interest(connection, SelectionKey.OP_READ);
+            deadline(connection, idleTimeoutMs);
+        }
+
+        private Connection pollIdle(String endpointKey) {
+            Deque<Connection> connections = idle.get(endpointKey);
+            if (connections == null) {
+                return null;
+            }
+            Connection connection = connections.pollLast();
+            if (connections.isEmpty()) {
+                idle.remove(endpointKey);
+            }
+            return connection;
+        }
+
+        private void close(Connection connection) {
+            if (connection.phase == Phase.IDLE) {
+                Deque<Connection> connections = idle.get(connection.endpointKey);
+                if (connections != null && connections.remove(connection) && connections.isEmpty()) {
+                    idle.remove(connection.endpointKey);
+                }
+            }
+            connection.phase = Phase.CLOSED;
+            connection.generation++;
+            if (connection.key != null) {
+                connection.key.cancel();
+            }
+            closeQuietly(connection.channel);
+            buffers.release(connection.appIn);
+            buffers.release(connection.netIn);
+            buffers.release(connection.netOut);
+            connection.appIn = null;
+            connection.netIn = null;
+            connection.netOut = null;
+            connection.exchange = null;
+        }
+
+        private void closeAll() {
+            IOException cause = new IOException("TCP client engine is closed");
+            for (SelectionKey key : selector.keys()) {
+                Connection connection = (Connection) key.attachment();
+                Exchange<?> exchange = connection.exchange;
+                close(connection);
+                if (exchange != null) {
+                    exchange.fail(cause);
+                }
+            }
+            terminated = true;
+            runTasks();
+            try {
+                selector.close();
+            } catch (IOException e) {
+                log.debug("Failed to close selector", e);
+            }
+        }
+
+        private void wrap(Connection connection, ByteBuffer src) throws IOException {
+            SSLEngineResult result = connection.ssl.wrap(src, netOut(connection));
+            switch (result.getStatus()) {
+                case BUFFER_OVERFLOW:
+                    connection.netOut = buffers.grow(connection.netOut,
+                            connection.ssl.getSession().getPacketBufferSize());
+                    break;
+                case CLOSED:
+                    throw new SSLException("TLS connection closed by TCP server");
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * Unwraps the next TLS record into the application buffer, reading from
+         * the socket when a complete record is not buffered yet. Returns -1 at
+         * EOF, 0 when the socket has no more data and 1 otherwise.
+         */
+        private int unwrap(Connection connection) throws IOException {
+            while (true) {
+                ByteBuffer netIn = netIn(connection);
+                netIn.flip();
+                SSLEngineResult result;
+                try {
+                    result = connection.ssl.unwrap(netIn, appIn(connection));
+                } finally {
+                    netIn.compact();
+                }
+                switch (result.getStatus()) {
+                    case OK:
+                        return 1;
+                    case BUFFER_OVERFLOW:
+                        growAppIn(connection,
+                                connection.appIn.position() + connection.ssl.getSession().getApplicationBufferSize());
+                        break;
+                    case BUFFER_UNDERFLOW:
+                        if (!netIn.hasRemaining()) {
+                            connection.netIn = buffers.grow(netIn, connection.ssl.getSession().getPacketBufferSize());
+                        }
+                        int n = connection.channel.read(connection.netIn);
+                        if (n <= 0) {
+                            return n;
+                        }
+                        break;
+                    default:
+                        return -1;
+                }
+            }
+        }
+
+        private boolean flush(Connection connection) throws IOException {
+            ByteBuffer netOut = connection.netOut;
+            if (netOut == null || netOut.position() == 0) {
+                return true;
+            }
+            netOut.flip();
+            connection.sent += connection.channel.write(netOut);
+            boolean flushed = !netOut.hasRemaining();
+            netOut.compact();
+            if (flushed) {
+                buffers.release(netOut);
+                connection.netOut = null;
+            }
+            return flushed;
+        }
+
+        /**
+         * Grows the response buffer unless the response already reached the max
+         * frame size, or {@link #MAX_RESPONSE_BYTES} when the framing sets none.
+         */
+        private void growAppIn(Connection connection, int minCapacity) throws IOException {
+            int maxFrameBytes = connection.exchange.framing.getMaxFrameBytes();
+            int limit = maxFrameBytes > 0 ? maxFrameBytes : MAX_RESPONSE_BYTES;
+            if (connection.appIn.position() >= limit) {
+                throw new IOException("Response exceeds max size of " + limit + " bytes");
+            }
+            connection.appIn = buffers.grow(connection.appIn, minCapacity);
+        }
+
+        private ByteBuffer netIn(Connection connection) {
+            if (connection.netIn == null) {
+                connection.netIn = buffers.acquire();
+            }
+            return connection.netIn;
+        }
+
+        private ByteBuffer netOut(Connection connection) {
+            if (connection.netOut == null) {
+                connection.netOut = buffers.acquire();
+            }
+            return connection.netOut;
+        }
+
+        private ByteBuffer appIn(Connection connection) {
+            if (connection.appIn == null) {
+                connection.appIn = buffers.acquire();
+            }
+            return connection.appIn;
+        }
+
+        // Connections waiting for data give their empty buffers back to the pool
+        private void releaseIfEmpty(Connection connection) {
+            if (connection.appIn != null && connection.appIn.position() == 0) {
+                buffers.release(connection.appIn);
+                connection.appIn = null;
+            }
+            if (connection.netIn != null && connection.netIn.position() == 0) {
+                buffers.release(connection.netIn);
+                connection.netIn = null;
+            }
+        }
+
+        private void interest(Connection connection, int ops) {
+            connection.key.interestOps(ops);
+        }
+
+        private void deadline(Connection connection, long timeoutMs) {
+            connection.generation++;
+            deadlines.add(new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs), connection));
+        }
+
+        private long nextTimeoutMs() {
+            Deadline next;
+            while ((next = deadlines.peek()) != null && next.generation != next.connection.generation) {
+                deadlines.poll();
+            }
+            if (next == null) {
+                return 0;
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(next.nanos - System.nanoTime());
+            return Math.max(remaining + 1, 1);
+        }
+
+        private void expire(long now) {
+            Deadline next;
+            while ((next = deadlines.peek()) != null && next.nanos <= now) {
+                deadlines.poll();
+                Connection connection = next.connection;
+                if (next.generation != connection.generation || connection.phase == Phase.CLOSED) {
+                    continue;
+                }
+                try {
+                    onTimeout(connection);
+                } catch (IOException | RuntimeException e) {
+                    fail(connection, e);
+                }
+            }
+        }
+    }
+
+    private static void runDelegatedTasks(SSLEngine ssl) {
+        Runnable task;
+        while ((task = ssl.getDelegatedTask()) != null) {
+            task.run();
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
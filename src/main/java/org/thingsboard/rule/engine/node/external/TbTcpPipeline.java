@@ -0,0 +1,457 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persistent connections on which requests are written back to back without
+ * waiting for the previous reply. Replies are split with the configured
+ * {@link TbTcpFraming} and matched to requests either in FIFO order or by a
+ * correlation field found at the same offset in the request and the reply.
+ * <p>
+ * {@link #send} only queues the request, it never blocks the caller: every
+ * connection opens its socket, including the TLS handshake, and writes the
+ * queued requests on its own I/O thread, while a second thread reads the
+ * replies. Connections without pending requests are closed after the idle
+ * timeout and endpoints left without connections are dropped.
+ * <p>
+ * As every connection holds two threads, the number of open connections across
+ * all endpoints is capped. Once the cap is reached, requests to an endpoint go
+ * to its open connections and are rejected when it has none.
+ */
+@Slf4j
+public class TbTcpPipeline {
+
+    private final TbTcpFraming framing;
+    private final int connectionsPerEndpoint;
+    private final int maxConnections;
+    private final int maxPendingPerConnection;
+    private final int correlationOffset;
+    private final int correlationLength;
+    private final long requestTimeoutMs;
+    private final long idleTimeoutMs;
+    private final ThreadFactory ioThreadFactory;
+    private final ThreadFactory readerThreadFactory;
+    private final ScheduledExecutorService timeoutExecutor;
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @param correlationOffset offset of the correlation field in request and reply
+     *                          frames
+     * @param correlationLength length of the correlation field, 0 for FIFO matching
+     * @param idleTimeoutMs     time after which a connection without pending
+     *                          requests is closed
+     * @param maxConnections    maximum number of open connections across all
+     *                          endpoints
+     */
+    public TbTcpPipeline(String name, TbTcpFraming framing, int connectionsPerEndpoint, int maxPendingPerConnection,
+            int correlationOffset, int correlationLength, long requestTimeoutMs, long idleTimeoutMs,
+            int maxConnections) {
+        if (framing.isNone()) {
+            throw new IllegalArgumentException("Pipelining requires response framing");
+        }
+        if (correlationOffset < 0) {
+            throw new IllegalArgumentException("Correlation field offset must not be negative");
+        }
+        this.framing = framing;
+        this.connectionsPerEndpoint = connectionsPerEndpoint;
+        this.maxConnections = maxConnections;
+        this.maxPendingPerConnection = maxPendingPerConnection;
+        this.correlationOffset = correlationOffset;
+        this.correlationLength = correlationLength;
+        this.requestTimeoutMs = requestTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.ioThreadFactory = ThingsBoardThreadFactory.forName(name + "-io");
+        this.readerThreadFactory = ThingsBoardThreadFactory.forName(name + "-reader");
+        this.timeoutExecutor = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName(name));
+        long period = Math.max(idleTimeoutMs / 2, 1000);
+        this.timeoutExecutor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the request on one of the endpoint connections, opening it when
+     * needed. The future completes with the raw reply frame.
+     */
+    public CompletableFuture<byte[]> send(String key, TbTcpConnectionPool.SocketOpener opener, byte[] payload) {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new IOException("TCP pipeline is closed"));
+            return future;
+        }
+        ByteBuffer correlationId = null;
+        if (correlationLength > 0) {
+            if (payload.length < correlationOffset + correlationLength) {
+                future.completeExceptionally(
+                        new IllegalArgumentException("Request is too short to contain the correlation field"));
+                return future;
+            }
+            correlationId = ByteBuffer
+                    .wrap(Arrays.copyOfRange(payload, correlationOffset, correlationOffset + correlationLength));
+        }
+        try {
+            while (true) {
+                Endpoint endpoint = endpoints.computeIfAbsent(key, k -> new Endpoint(connectionsPerEndpoint));
+                // Selecting and queueing under the endpoint lock keeps the eviction
+                // from closing the connection in between, neither of them blocks
+                synchronized (endpoint) {
+                    if (endpoint.removed) {
+                        continue;
+                    }
+                    int idx = Math.floorMod(roundRobin.getAndIncrement(), endpoint.connections.length);
+                    PipelinedConnection connection = endpoint.connections[idx];
+                    if (connection == null || connection.closed) {
+                        if (reserveConnection()) {
+                            connection = new PipelinedConnection(key);
+                            endpoint.connections[idx] = connection;
+                            connection.start(opener);
+                        } else {
+                            connection = endpoint.anyOpen();
+                            if (connection == null) {
+                                throw new RejectedExecutionException(
+                                        "Max pipelined connections (" + maxConnections + ") reached");
+                            }
+                        }
+                    }
+                    connection.write(payload, correlationId, future);
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public void close() {
+        closed = true;
+        endpoints.values().forEach(endpoint -> {
+            synchronized (endpoint) {
+                endpoint.removed = true;
+                for (PipelinedConnection connection : endpoint.connections) {
+                    if (connection != null) {
+                        connection.close(new IOException("TCP pipeline is closed"));
+                    }
+                }
+            }
+        });
+        endpoints.clear();
+        timeoutExecutor.shutdownNow();
+    }
+
+    int getEndpointCount() {
+        return endpoints.size();
+    }
+
+    int getOpenConnectionCount() {
+        return openConnections.get();
+    }
+
+    private boolean reserveConnection() {
+        while (true) {
+            int open = openConnections.get();
+            if (open >= maxConnections) {
+                return false;
+            }
+            if (openConnections.compareAndSet(open, open + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Closes connections without pending requests that were not used within the
+     * idle timeout and drops endpoints without open connections.
+     */
+    void evictIdle() {
+        long deadline = System.currentTimeMillis() - idleTimeoutMs;
+        endpoints.forEach((key, endpoint) -> {
+            synchronized (endpoint) {
+                boolean empty = true;
+                for (int i = 0; i < endpoint.connections.length; i++) {
+                    PipelinedConnection connection = endpoint.connections[i];
+                    if (connection == null) {
+                        continue;
+                    }
+                    if (!connection.closed && connection.isIdleSince(deadline)) {
+                        connection.close(new IOException("Idle connection to " + key + " closed"));
+                    }
+                    if (connection.closed) {
+                        endpoint.connections[i] = null;
+                    } else {
+                        empty = false;
+                    }
+                }
+                if (empty) {
+                    endpoint.removed = true;
+                    endpoints.remove(key, endpoint);
+                }
+            }
+        });
+    }
+
+    private static class Endpoint {
+        private final PipelinedConnection[] connections;
+        // guarded by this, set once the endpoint is dropped from the map
+        private boolean removed;
+
+        Endpoint(int connectionsPerEndpoint) {
+            this.connections = new PipelinedConnection[connectionsPerEndpoint];
+        }
+
+        PipelinedConnection anyOpen() {
+            for (PipelinedConnection connection : connections) {
+                if (connection != null && !connection.closed) {
+                    return connection;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class Pending {
+        private final byte[] payload;
+        private final CompletableFuture<byte[]> future;
+        private ScheduledFuture<?> timeout;
+
+        Pending(byte[] payload, CompletableFuture<byte[]> future) {
+            this.payload = payload;
+            this.future = future;
+        }
+    }
+
+    private class PipelinedConnection {
+        private final String key;
+        private final Deque<Pending> fifo = new ArrayDeque<>();
+        private final Map<ByteBuffer, Pending> correlated = new HashMap<>();
+        private final BlockingQueue<Pending> outbox = new LinkedBlockingQueue<>();
+        private Socket socket;
+        private volatile Thread ioThread;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile boolean closed;
+
+        PipelinedConnection(String key) {
+            this.key = key;
+        }
+
+        void start(TbTcpConnectionPool.SocketOpener opener) {
+            ioThread = ioThreadFactory.newThread(() -> ioLoop(opener));
+            ioThread.start();
+        }
+
+        /**
+         * Registers the request and queues it for the I/O thread.
+         */
+        void write(byte[] payload, ByteBuffer correlationId, CompletableFuture<byte[]> future) throws IOException {
+            Pending pending = new Pending(payload, future);
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("Connection to " + key + " is closed");
+                }
+                int inFlight = correlationId != null ? correlated.size() : fifo.size();
+                if (inFlight >= maxPendingPerConnection) {
+                    throw new RejectedExecutionException("Max pipelined requests reached for " + key);
+                }
+                if (correlationId != null) {
+                    if (correlated.putIfAbsent(correlationId, pending) != null) {
+                        throw new IllegalArgumentException("Request with the same correlation id is already in flight");
+                    }
+                } else {
+                    fifo.addLast(pending);
+                }
+                pending.timeout = timeoutExecutor.schedule(() -> onTimeout(correlationId, pending), requestTimeoutMs,
+                        TimeUnit.MILLISECONDS);
+                // Queued in the same order as registered, FIFO matching relies on it
+                outbox.add(pending);
+                lastUsed = System.currentTimeMillis();
+            }
+        }
+
+        synchronized boolean isIdleSince(long deadline) {
+            return fifo.isEmpty() && correlated.isEmpty() && lastUsed < deadline;
+        }
+
+        private void ioLoop(TbTcpConnectionPool.SocketOpener opener) {
+            try {
+                Socket opened = opener.open().getSocket();
+                synchronized (this) {
+                    if (closed) {
+                        opened.close();
+                        return;
+                    }
+                    socket = opened;
+                }
+                readerThreadFactory.newThread(this::readLoop).start();
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+                while (!closed) {
+                    Pending pending = outbox.take();
+                    do {
+                        // Requests that already timed out are not sent
+                        if (!pending.future.isDone()) {
+                            out.write(pending.payload);
+                        }
+                    } while ((pending = outbox.poll()) != null);
+                    out.flush();
+                }
+            } catch (InterruptedException e) {
+                // closed
+            } catch (IOException e) {
+                close(e);
+            }
+        }
+
+        private void onTimeout(ByteBuffer correlationId, Pending pending) {
+            if (pending.future.isDone()) {
+                return;
+            }
+            SocketTimeoutException e = new SocketTimeoutException("No response received from TCP server within "
+                    + requestTimeoutMs + " ms");
+            if (correlationId == null) {
+                // Later replies can no longer be matched by position, start over
+                close(e);
+                return;
+            }
+            synchronized (this) {
+                correlated.remove(correlationId, pending);
+            }
+            pending.future.completeExceptionally(e);
+        }
+
+        private void readLoop() {
+            byte[] buffer = new byte[4096];
+            int len = 0;
+            int scanFrom = 0;
+            try {
+                InputStream in = socket.getInputStream();
+                while (!closed) {
+                    int n;
+                    try {
+                        n = in.read(buffer, len, buffer.length - len);
+                    } catch (SocketTimeoutException e) {
+                        continue;
+                    }
+                    if (n == -1) {
+                        throw new EOFException("Connection closed by TCP server");
+                    }
+                    len += n;
+                    int frameLength;
+                    while (len > 0 && (frameLength = framing.frameLength(buffer, len, scanFrom)) >= 0) {
+                        dispatch(buffer, frameLength);
+                        System.arraycopy(buffer, frameLength, buffer, 0, len - frameLength);
+                        len -= frameLength;
+                        scanFrom = 0;
+                    }
+                    scanFrom = framing.resumeScanAt(len);
+                    if (len == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                }
+            } catch (IOException e) {
+                close(e);
+            }
+        }
+
+        private void dispatch(byte[] buffer, int frameLength) {
+            Pending pending;
+            synchronized (this) {
+                if (correlationLength == 0) {
+                    pending = fifo.pollFirst();
+                } else if (frameLength >= correlationOffset + correlationLength) {
+                    pending = correlated.remove(ByteBuffer.wrap(buffer, correlationOffset, correlationLength));
+                } else {
+                    pending = null;
+                }
+                lastUsed = System.currentTimeMillis();
+            }
+            if (pending == null) {
+                log.debug("Dropping unmatched response from {}", key);
+                return;
+            }
+            if (pending.timeout != null) {
+                pending.timeout.cancel(false);
+            }
+            pending.future.complete(framing.extract(buffer, frameLength));
+        }
+
+        private void close(IOException cause) {
+            List<Pending> failed;
+            Socket toClose;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                openConnections.decrementAndGet();
+                failed = new ArrayList<>(fifo);
+                failed.addAll(correlated.values());
+                fifo.clear();
+                correlated.clear();
+                outbox.clear();
+                toClose = socket;
+            }
+            if (ioThread != null && ioThread != Thread.currentThread()) {
+                // Wakes the I/O thread up from the outbox, a pending connect ends
+                // on its own and the socket is closed then
+                ioThread.interrupt();
+            }
+            if (toClose != null) {
+                try {
+                    toClose.close();
+                } catch (Exception ignored) {
+                }
+            }
+            for (Pending pending : failed) {
+                if (pending.timeout != null) {
+                    pending.timeout.cancel(false);
+                }
+                pending.future.completeExceptionally(cause);
+            }
+        }
+    }
+}
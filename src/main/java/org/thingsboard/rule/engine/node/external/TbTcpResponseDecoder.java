@@ -0,0 +1,440 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Declarative response decoder compiled from
+ * {@link TbSendToTcpNodeConfiguration.ResponseDecoderConfig}. Reads fixed
+ * binary fields or delimited text columns straight from the response frame and
+ * writes them as a flat telemetry object, e.g.
+ * {@code {"temperature":21.5,"status":"OK"}}, instead of the
+ * {@code {"response":...}} envelope.
+ */
+public class TbTcpResponseDecoder {
+
+    public enum Format {
+        /**
+         * Fields at fixed byte offsets
+         */
+        BINARY,
+        /**
+         * Columns of a single text record split by a delimiter
+         */
+        DELIMITED
+    }
+
+    public enum FieldType {
+        INT8(1), UINT8(1), INT16(2), UINT16(2), INT32(4), UINT32(4), INT64(8), FLOAT32(4), FLOAT64(8),
+        BOOLEAN(1), STRING(0), HEX(0), NUMBER(0);
+
+        private final int size;
+
+        FieldType(int size) {
+            this.size = size;
+        }
+
+        boolean isInteger() {
+            return this == INT8 || this == UINT8 || this == INT16 || this == UINT16 || this == INT32
+                    || this == UINT32 || this == INT64;
+        }
+
+        boolean isNumeric() {
+            return isInteger() || this == FLOAT32 || this == FLOAT64 || this == NUMBER;
+        }
+    }
+
+    /**
+     * The response does not match the decoder configuration.
+     */
+    public static class DecodeException extends IllegalArgumentException {
+        public DecodeException(String message) {
+            super(message);
+        }
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Format format;
+    private final Field[] fields;
+    private final byte[] delimiter;
+    // stop at the first line break unless the delimiter contains one
+    private final boolean singleLine;
+    private final int columns;
+
+    private TbTcpResponseDecoder(Format format, Field[] fields, byte[] delimiter) {
+        this.format = format;
+        this.fields = fields;
+        this.delimiter = delimiter;
+        this.singleLine = delimiter != null && indexOf(delimiter, (byte) '\n') < 0 && indexOf(delimiter, (byte) '\r') < 0;
+        int columns = 0;
+        for (Field field : fields) {
+            columns = Math.max(columns, field.offset + 1);
+        }
+        this.columns = columns;
+    }
+
+    private static final class Field {
+        private final String key;
+        private final FieldType type;
+        private final int offset;
+        private final int length;
+        private final boolean littleEndian;
+        private final int bit;
+        private final double scale;
+        // 10 for a scale of 0.1, dividing avoids results such as 3.3000000000000003
+        private final double divisor;
+        private final boolean scaled;
+
+        Field(String key, FieldType type, int offset, int length, boolean littleEndian, int bit, Double scale) {
+            this.key = key;
+            this.type = type;
+            this.offset = offset;
+            this.length = length;
+            this.littleEndian = littleEndian;
+            this.bit = bit;
+            this.scale = scale != null ? scale : 1.0;
+            double inverse = 1.0 / this.scale;
+            this.divisor = Math.abs(inverse) > 1 && Math.abs(inverse - Math.rint(inverse)) < 1e-9 * Math.abs(inverse)
+                    ? Math.rint(inverse) : 0;
+            this.scaled = scale != null;
+        }
+
+        double scale(double value) {
+            return divisor != 0 ? value / divisor : value * scale;
+        }
+    }
+
+    /**
+     * Validates the configuration and compiles it. Returns {@code null} when no
+     * decoder is configured.
+     */
+    public static TbTcpResponseDecoder fromConfig(TbSendToTcpNodeConfiguration.ResponseDecoderConfig config) {
+        if (config == null) {
+            return null;
+        }
+        Format format = config.getFormat() != null ? Format.valueOf(config.getFormat().toUpperCase()) : Format.BINARY;
+        List<TbSendToTcpNodeConfiguration.DecoderFieldConfig> fieldConfigs = config.getFields();
+        if (fieldConfigs == null || fieldConfigs.isEmpty()) {
+            throw new IllegalArgumentException("Response decoder requires at least one field");
+        }
+        boolean littleEndian = "LITTLE_ENDIAN".equalsIgnoreCase(config.getByteOrder());
+        Field[] fields = new Field[fieldConfigs.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = compileField(format, fieldConfigs.get(i), littleEndian);
+        }
+        byte[] delimiter = null;
+        if (format == Format.DELIMITED) {
+            delimiter = TbTcpFraming.parseDelimiter(config.getDelimiter() != null ? config.getDelimiter() : ",");
+            if (delimiter.length == 0) {
+                throw new IllegalArgumentException("Response decoder delimiter must not be empty");
+            }
+        }
+        return new TbTcpResponseDecoder(format, fields, delimiter);
+    }
+
+    private static Field compileField(Format format, TbSendToTcpNodeConfiguration.DecoderFieldConfig config,
+            boolean littleEndian) {
+        String key = config.getKey();
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("Response decoder field requires a key");
+        }
+        if (config.getOffset() < 0) {
+            throw new IllegalArgumentException("Offset of field '" + key + "' must not be negative");
+        }
+        FieldType type = config.getType() != null ? FieldType.valueOf(config.getType().toUpperCase())
+                : format == Format.BINARY ? FieldType.UINT8 : FieldType.NUMBER;
+        if (config.getScale() != null && (!type.isNumeric() || !Double.isFinite(config.getScale()))) {
+            throw new IllegalArgumentException("Scale of field '" + key + "' must be a finite number of a numeric field");
+        }
+        int bit = -1;
+        int length = type.size;
+        if (format == Format.BINARY) {
+            if (type == FieldType.NUMBER) {
+                throw new IllegalArgumentException("Binary field '" + key + "' requires a fixed size type");
+            }
+            if (type == FieldType.STRING || type == FieldType.HEX) {
+                if (config.getLength() <= 0) {
+                    throw new IllegalArgumentException("Field '" + key + "' of type " + type + " requires a positive length");
+                }
+                length = config.getLength();
+            }
+            if (type == FieldType.BOOLEAN && config.getBit() != null) {
+                if (config.getBit() < 0 || config.getBit() > 7) {
+                    throw new IllegalArgumentException("Bit of field '" + key + "' must be between 0 and 7");
+                }
+                bit = config.getBit();
+            }
+            if (config.getByteOrder() != null) {
+                littleEndian = "LITTLE_ENDIAN".equalsIgnoreCase(config.getByteOrder());
+            }
+        } else {
+            if (type == FieldType.HEX) {
+                throw new IllegalArgumentException("Delimited field '" + key + "' can't be of type HEX");
+            }
+            if (type.isNumeric()) {
+                type = FieldType.NUMBER;
+            }
+        }
+        return new Field(key, type, config.getOffset(), length, littleEndian, bit, config.getScale());
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Decodes the remaining bytes of the buffer, which may be a direct buffer,
+     * into telemetry JSON. The buffer position is not changed.
+     *
+     * @throws DecodeException if the response is too short or a value can't be
+     *                         parsed
+     */
+    public String decode(ByteBuffer response) {
+        StringWriter writer = new StringWriter(32 + fields.length * 24);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            generator.writeStartObject();
+            if (format == Format.BINARY) {
+                writeBinary(response, generator);
+            } else {
+                writeDelimited(response, generator);
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // StringWriter does not throw
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    public String decode(byte[] response) {
+        return decode(ByteBuffer.wrap(response));
+    }
+
+    private void writeBinary(ByteBuffer response, JsonGenerator generator) throws IOException {
+        int base = response.position();
+        int size = response.remaining();
+        for (Field field : fields) {
+            if (field.offset + field.length > size) {
+                throw new DecodeException("Response of " + size + " bytes is too short for field '" + field.key
+                        + "' at offset " + field.offset);
+            }
+            int start = base + field.offset;
+            generator.writeFieldName(field.key);
+            switch (field.type) {
+                case STRING:
+                    int end = start;
+                    while (end < start + field.length && response.get(end) != 0) {
+                        end++;
+                    }
+                    generator.writeString(utf8(response, start, end));
+                    break;
+                case HEX:
+                    char[] hex = new char[field.length * 2];
+                    for (int i = 0; i < field.length; i++) {
+                        int b = response.get(start + i) & 0xFF;
+                        hex[i * 2] = HEX_DIGITS[b >>> 4];
+                        hex[i * 2 + 1] = HEX_DIGITS[b & 0x0F];
+                    }
+                    generator.writeString(hex, 0, hex.length);
+                    break;
+                case BOOLEAN:
+                    int b = response.get(start) & 0xFF;
+                    generator.writeBoolean(field.bit >= 0 ? (b >>> field.bit & 1) != 0 : b != 0);
+                    break;
+                case FLOAT32:
+                    float f = Float.intBitsToFloat((int) readBits(response, start, field));
+                    if (field.scaled) {
+                        generator.writeNumber(field.scale(f));
+                    } else {
+                        generator.writeNumber(f);
+                    }
+                    break;
+                case FLOAT64:
+                    generator.writeNumber(field.scale(Double.longBitsToDouble(readBits(response, start, field))));
+                    break;
+                default:
+                    long value = readInteger(response, start, field);
+                    if (field.scaled) {
+                        generator.writeNumber(field.scale(value));
+                    } else {
+                        generator.writeNumber(value);
+                    }
+            }
+        }
+    }
+
+    private void writeDelimited(ByteBuffer response, JsonGenerator generator) throws IOException {
+        int start = response.position();
+        int end = response.limit();
+        if (singleLine) {
+            for (int i = start; i < end; i++) {
+                byte b = response.get(i);
+                if (b == '\n' || b == '\r') {
+                    end = i;
+                    break;
+                }
+            }
+        }
+        // start and end of each needed column
+        int[] bounds = new int[columns * 2];
+        int found = 0;
+        for (int from = start; found < columns; ) {
+            int next = indexOf(response, from, end, delimiter);
+            bounds[found * 2] = from;
+            bounds[found * 2 + 1] = next >= 0 ? next : end;
+            found++;
+            if (next < 0) {
+                break;
+            }
+            from = next + delimiter.length;
+        }
+        for (Field field : fields) {
+            if (field.offset >= found) {
+                throw new DecodeException("Response has " + found + " columns, field '" + field.key + "' is in column "
+                        + field.offset);
+            }
+            int from = bounds[field.offset * 2];
+            int to = bounds[field.offset * 2 + 1];
+            while (from < to && (response.get(from) & 0xFF) <= ' ') {
+                from++;
+            }
+            while (to > from && (response.get(to - 1) & 0xFF) <= ' ') {
+                to--;
+            }
+            if (to - from >= 2 && response.get(from) == '"' && response.get(to - 1) == '"') {
+                from++;
+                to--;
+            }
+            if (from == to && field.type != FieldType.STRING) {
+                // Empty value, nothing to save
+                continue;
+            }
+            String text = utf8(response, from, to);
+            generator.writeFieldName(field.key);
+            switch (field.type) {
+                case STRING:
+                    generator.writeString(text);
+                    break;
+                case BOOLEAN:
+                    generator.writeBoolean(parseBoolean(field, text));
+                    break;
+                default:
+                    writeNumber(generator, field, text);
+            }
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, Field field, String text) throws IOException {
+        if (!field.scaled) {
+            try {
+                generator.writeNumber(Long.parseLong(text));
+                return;
+            } catch (NumberFormatException e) {
+                // not an integer, parsed as double below
+            }
+        }
+        double value;
+        try {
+            value = Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new DecodeException("Value of field '" + field.key + "' is not a number: " + text);
+        }
+        generator.writeNumber(field.scale(value));
+    }
+
+    private static boolean parseBoolean(Field field, String text) {
+        switch (text.toLowerCase()) {
+            case "true":
+            case "1":
+            case "on":
+            case "yes":
+                return true;
+            case "false":
+            case "0":
+            case "off":
+            case "no":
+                return false;
+            default:
+                throw new DecodeException("Value of field '" + field.key + "' is not a boolean: " + text);
+        }
+    }
+
+    private static long readBits(ByteBuffer buf, int start, Field field) {
+        int size = field.type.size;
+        long bits = 0;
+        for (int i = 0; i < size; i++) {
+            bits = bits << 8 | (buf.get(start + (field.littleEndian ? size - 1 - i : i)) & 0xFF);
+        }
+        return bits;
+    }
+
+    private static long readInteger(ByteBuffer buf, int start, Field field) {
+        long bits = readBits(buf, start, field);
+        switch (field.type) {
+            case INT8:
+                return (byte) bits;
+            case INT16:
+                return (short) bits;
+            case INT32:
+                return (int) bits;
+            default:
+                // unsigned types and INT64
+                return bits;
+        }
+    }
+
+    private static String utf8(ByteBuffer buf, int from, int to) {
+        if (buf.hasArray()) {
+            return new String(buf.array(), buf.arrayOffset() + from, to - from, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int indexOf(ByteBuffer buf, int from, int to, byte[] pattern) {
+        outer:
+        for (int i = from; i <= to - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buf.get(i + j) != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] bytes, byte value) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+/**
+ * Timings and transferred bytes of a single request. Filled by the node and
+ * {@link TbTcpClient} on the thread executing the request and read once the
+ * request completed. Times are nanoseconds, phases that did not happen stay 0,
+ * e.g. connect and handshake on a pooled connection. {@code connected} is set
+ * once a request was written on an established connection.
+ */
+public class TbTcpTrace {
+
+    long resolveNanos;
+    long tlsContextNanos;
+    long connectNanos;
+    long handshakeNanos;
+    long writeNanos;
+    long firstByteNanos;
+    long totalNanos;
+    long bytesOut;
+    long bytesIn;
+    boolean connected;
+
+    public long getResolveNanos() {
+        return resolveNanos;
+    }
+
+    public long getTlsContextNanos() {
+        return tlsContextNanos;
+    }
+
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    public long getHandshakeNanos() {
+        return handshakeNanos;
+    }
+
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    public long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+}
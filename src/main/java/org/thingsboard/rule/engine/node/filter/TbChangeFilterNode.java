@@ -0,0 +1,175 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.filter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.thingsboard.rule.engine.api.RuleNode;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNode;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.rule.engine.api.util.TbNodeUtils;
+import org.thingsboard.server.common.data.plugin.ComponentType;
+import org.thingsboard.server.common.msg.TbMsg;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+@RuleNode(
+        type = ComponentType.FILTER,
+        name = "change detection",
+        relationTypes = {"Changed", "Unchanged"},
+        configClazz = TbChangeFilterNodeConfiguration.class,
+        nodeDescription = "Drops repeated telemetry by comparing it with the last values forwarded for the originator.",
+        nodeDetails = "If any of the selected top-level keys is new, differs from the last forwarded value or is older than <code>Entry TTL</code>, " +
+                "the values are remembered and the Message is sent via <b>Changed</b> chain, otherwise <b>Unchanged</b> chain is used. " +
+                "Numeric changes within the deadband of the key are ignored. Messages which are not JSON objects or have none of the keys " +
+                "are sent via <b>Changed</b> chain.",
+        uiResources = {"static/rulenode/custom-nodes-config.js"},
+        configDirective = "tbFilterNodeChangeDetectionConfig"
+)
+public class TbChangeFilterNode implements TbNode {
+
+    static final String CHANGED = "Changed";
+    static final String UNCHANGED = "Unchanged";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    TbLastValueCache cache;
+
+    private Set<String> keys;
+    private double deadband;
+    private Map<String, Double> keyDeadbands;
+
+    @Override
+    public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
+        var config = TbNodeUtils.convert(configuration, TbChangeFilterNodeConfiguration.class);
+        if (config.getMaxEntries() <= 0) {
+            throw new TbNodeException("Max entries must be positive");
+        }
+        if (config.getEntryTtl() < 0) {
+            throw new TbNodeException("Entry TTL must not be negative");
+        }
+        if (!(config.getDeadband() >= 0)) {
+            throw new TbNodeException("Deadband must not be negative");
+        }
+        keyDeadbands = new HashMap<>();
+        if (config.getKeyDeadbands() != null) {
+            for (Map.Entry<String, Double> entry : config.getKeyDeadbands().entrySet()) {
+                if (entry.getValue() == null || !(entry.getValue() >= 0)) {
+                    throw new TbNodeException("Deadband of key '" + entry.getKey() + "' must not be negative");
+                }
+                keyDeadbands.put(entry.getKey(), entry.getValue());
+            }
+        }
+        keys = config.getKeys() != null && !config.getKeys().isEmpty() ? new HashSet<>(config.getKeys()) : null;
+        deadband = config.getDeadband();
+        cache = new TbLastValueCache(config.getMaxEntries(), config.getEntryTtl());
+        if (config.getJmxMetrics() == null || config.getJmxMetrics()) {
+            cache.register(String.valueOf(ctx.getSelfId()));
+        }
+    }
+
+    @Override
+    public void onMsg(TbContext ctx, TbMsg msg) {
+        TbLastValueCache.Sample sample;
+        try {
+            sample = sample(msg.getData());
+        } catch (IOException e) {
+            // Malformed JSON is not a JSON object either, there is nothing to compare
+            sample = null;
+        }
+        if (sample == null || sample.size() == 0) {
+            ctx.tellNext(msg, CHANGED);
+            return;
+        }
+        boolean changed = cache.update(msg.getOriginator().getId(), sample, clock.getAsLong());
+        ctx.tellNext(msg, changed ? CHANGED : UNCHANGED);
+    }
+
+    @Override
+    public void destroy() {
+        if (cache != null) {
+            cache.unregister();
+            cache.clear();
+        }
+    }
+
+    /**
+     * Reads the selected top-level fields. Numbers are kept as doubles, any
+     * other value, including nested objects and arrays, is reduced to a hash of
+     * its tokens. Returns {@code null} if the data is not a JSON object.
+     */
+    private TbLastValueCache.Sample sample(String data) throws IOException {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            TbLastValueCache.Sample sample = new TbLastValueCache.Sample();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if (keys != null && !keys.contains(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                long keyHash = TbLastValueCache.hash(TbLastValueCache.HASH_SEED, field);
+                if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                    sample.addNumber(keyHash, parser.getDoubleValue(), keyDeadbands.getOrDefault(field, deadband));
+                } else {
+                    sample.addHash(keyHash, hashValue(parser, token));
+                }
+            }
+            return sample;
+        }
+    }
+
+    private static long hashValue(JsonParser parser, JsonToken token) throws IOException {
+        long hash = hashToken(TbLastValueCache.HASH_SEED, parser, token);
+        if (token.isStructStart()) {
+            for (int depth = 1; depth > 0; ) {
+                token = parser.nextToken();
+                hash = hashToken(hash, parser, token);
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static long hashToken(long hash, JsonParser parser, JsonToken token) throws IOException {
+        hash = TbLastValueCache.hash(hash, token.id());
+        if (token.isScalarValue() || token == JsonToken.FIELD_NAME) {
+            hash = TbLastValueCache.hash(hash, parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+        return hash;
+    }
+
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.filter;
+
+import lombok.Data;
+import org.thingsboard.rule.engine.api.NodeConfiguration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class TbChangeFilterNodeConfiguration implements NodeConfiguration<TbChangeFilterNodeConfiguration> {
+
+    /**
+     * Top-level keys to compare, empty - all top-level keys of the payload
+     */
+    private List<String> keys;
+    /**
+     * Numeric changes up to this absolute difference are not reported
+     */
+    private double deadband;
+    /**
+     * Deadband per key, overrides the default deadband
+     */
+    private Map<String, Double> keyDeadbands;
+    /**
+     * Maximum number of originator and key pairs remembered, least recently
+     * used pairs are evicted first
+     */
+    private int maxEntries;
+    /**
+     * Age (ms) after which a remembered value is forgotten and the next message
+     * is reported as changed, 0 - never
+     */
+    private long entryTtl;
+    /**
+     * Publish cache metrics of the node over JMX, null - enabled
+     */
+    private Boolean jmxMetrics;
+
+    @Override
+    public TbChangeFilterNodeConfiguration defaultConfiguration() {
+        var configuration = new TbChangeFilterNodeConfiguration();
+        configuration.setKeys(new ArrayList<>());
+        configuration.setDeadband(0.0);
+        configuration.setKeyDeadbands(new HashMap<>());
+        configuration.setMaxEntries(100000);
+        configuration.setEntryTtl(3600000L);
+        configuration.setJmxMetrics(true);
+        return configuration;
+    }
+
+}
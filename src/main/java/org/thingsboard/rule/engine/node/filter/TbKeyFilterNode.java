@@ -15,7 +15,6 @@
  */
 package org.thingsboard.rule.engine.node.filter;
 
-import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.rule.engine.api.RuleNode;
 import org.thingsboard.rule.engine.api.TbContext;
 import org.thingsboard.rule.engine.api.TbNode;
@@ -26,29 +25,43 @@ import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
 import org.thingsboard.server.common.data.plugin.ComponentType;
 import org.thingsboard.server.common.msg.TbMsg;
 
+import java.util.List;
+
 @RuleNode(
         type = ComponentType.FILTER,
         name = "check key",
         relationTypes = {"True", "False"},
         configClazz = TbKeyFilterNodeConfiguration.class,
-        nodeDescription = "Checks the existence of the selected key in the message payload.",
-        nodeDetails = "If the selected key  exists - send Message via <b>True</b> chain, otherwise <b>False</b> chain is used.",
+        nodeDescription = "Checks keys and values of the message payload.",
+        nodeDetails = "Each condition tests a top-level key or a JSON pointer such as <code>/sensor/values/0</code> with one of " +
+                "EXISTS, NOT_EXISTS, EQ, NE, GT, GE, LT, LE or MATCHES. If all conditions hold, or any of them when <code>Match All</code> is off, " +
+                "send Message via <b>True</b> chain, otherwise <b>False</b> chain is used. Without conditions the selected key must exist.",
         uiResources = {"static/rulenode/custom-nodes-config.js"},
         configDirective = "tbFilterNodeCheckKeyConfig"
 )
 public class TbKeyFilterNode implements TbNode {
 
-    private String key;
+    private TbKeyPredicate predicate;
 
     @Override
     public void init(TbContext tbContext, TbNodeConfiguration configuration) throws TbNodeException {
         var config = TbNodeUtils.convert(configuration, TbKeyFilterNodeConfiguration.class);
-        key = config.getKey();
+        try {
+            if (config.getConditions() != null && !config.getConditions().isEmpty()) {
+                predicate = new TbKeyPredicate(config.getConditions(), config.getMatchAll() == null || config.getMatchAll());
+            } else if (config.getKey() != null) {
+                predicate = TbKeyPredicate.keyExists(config.getKey());
+            } else {
+                predicate = new TbKeyPredicate(List.of(), false);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new TbNodeException(e);
+        }
     }
 
     @Override
     public void onMsg(TbContext ctx, TbMsg msg) {
-        ctx.tellNext(msg, JacksonUtil.toJsonNode(msg.getData()).has(key) ? TbNodeConnectionType.TRUE : TbNodeConnectionType.FALSE);
+        ctx.tellNext(msg, predicate.test(msg.getData()) ? TbNodeConnectionType.TRUE : TbNodeConnectionType.FALSE);
     }
 
 }
@@ -18,15 +18,44 @@ package org.thingsboard.rule.engine.node.filter;
 import lombok.Data;
 import org.thingsboard.rule.engine.api.NodeConfiguration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 public class TbKeyFilterNodeConfiguration implements NodeConfiguration<TbKeyFilterNodeConfiguration> {
 
+    /**
+     * Top-level key that must exist, used when no conditions are configured
+     */
     private String key;
+    private List<Condition> conditions;
+    /**
+     * All conditions must hold (default) or any of them
+     */
+    private Boolean matchAll;
+
+    @Data
+    public static class Condition {
+        /**
+         * Top-level key or JSON pointer, e.g. <code>/sensor/values/0</code>
+         */
+        private String path;
+        /**
+         * EXISTS, NOT_EXISTS, EQ, NE, GT, GE, LT, LE or MATCHES
+         */
+        private String operator;
+        /**
+         * Number or text to compare with, regular expression for MATCHES
+         */
+        private String value;
+    }
 
     @Override
     public TbKeyFilterNodeConfiguration defaultConfiguration() {
         var configuration = new TbKeyFilterNodeConfiguration();
         configuration.setKey(null);
+        configuration.setConditions(new ArrayList<>());
+        configuration.setMatchAll(true);
         return configuration;
     }
 
@@ -0,0 +1,323 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.filter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Conditions of {@link TbKeyFilterNode} compiled into a tree of the paths they
+ * test. A message is evaluated in one streaming pass over its payload: only
+ * fields on a condition path are descended into and the pass stops as soon as
+ * the result is decided. Conditions on paths that were not found are decided at
+ * the end: NOT_EXISTS and NE hold, all others fail.
+ */
+final class TbKeyPredicate {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    enum Operator {
+        EXISTS, NOT_EXISTS, EQ, NE, GT, GE, LT, LE, MATCHES
+    }
+
+    private final Condition[] conditions;
+    private final boolean matchAll;
+    private final PathNode root = new PathNode();
+
+    /**
+     * @throws IllegalArgumentException if a condition is not valid
+     */
+    TbKeyPredicate(List<TbKeyFilterNodeConfiguration.Condition> configs, boolean matchAll) {
+        this.conditions = new Condition[configs.size()];
+        this.matchAll = matchAll;
+        for (int i = 0; i < conditions.length; i++) {
+            TbKeyFilterNodeConfiguration.Condition config = configs.get(i);
+            conditions[i] = new Condition(config);
+            PathNode node = root;
+            for (String segment : parsePath(config.getPath())) {
+                node = node.child(segment);
+            }
+            node.addCondition(i);
+        }
+    }
+
+    /**
+     * Predicate that holds when the top-level key exists, whatever its name.
+     */
+    static TbKeyPredicate keyExists(String key) {
+        var condition = new TbKeyFilterNodeConfiguration.Condition();
+        condition.setPath("/" + key.replace("~", "~0").replace("/", "~1"));
+        condition.setOperator(Operator.EXISTS.name());
+        return new TbKeyPredicate(List.of(condition), true);
+    }
+
+    /**
+     * Evaluates the conditions against the JSON payload. Without conditions the
+     * result is {@code matchAll}.
+     *
+     * @throws IllegalArgumentException if the payload is malformed JSON
+     */
+    boolean test(String json) {
+        Evaluation evaluation = new Evaluation();
+        if (json != null && !json.isEmpty() && conditions.length > 0) {
+            try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    walkObject(parser, root, evaluation);
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException("The given string value cannot be transformed to Json object: " + json, e);
+            }
+        }
+        return evaluation.result();
+    }
+
+    // Returns false once the result is decided
+    private boolean walkObject(JsonParser parser, PathNode node, Evaluation evaluation) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            PathNode child = node.children.get(parser.currentName());
+            JsonToken token = parser.nextToken();
+            if (child == null) {
+                parser.skipChildren();
+            } else if (!visit(parser, token, child, evaluation)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean walkArray(JsonParser parser, PathNode node, Evaluation evaluation) throws IOException {
+        int index = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            PathNode child = index <= node.maxIndex ? node.children.get(Integer.toString(index)) : null;
+            index++;
+            if (child == null) {
+                parser.skipChildren();
+            } else if (!visit(parser, token, child, evaluation)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean visit(JsonParser parser, JsonToken token, PathNode node, Evaluation evaluation) throws IOException {
+        for (int idx : node.conditions) {
+            if (evaluation.decide(idx, conditions[idx].test(parser, token))) {
+                return false;
+            }
+        }
+        if (token == JsonToken.START_OBJECT && !node.children.isEmpty()) {
+            return walkObject(parser, node, evaluation);
+        }
+        if (token == JsonToken.START_ARRAY && node.maxIndex >= 0) {
+            return walkArray(parser, node, evaluation);
+        }
+        parser.skipChildren();
+        return true;
+    }
+
+    /**
+     * Splits a JSON pointer into unescaped segments. A path without a leading
+     * slash is a single top-level key.
+     */
+    static List<String> parsePath(String path) {
+        if (path == null || path.isEmpty()) {
+            throw new IllegalArgumentException("Condition path is required");
+        }
+        List<String> segments = new ArrayList<>();
+        if (path.charAt(0) != '/') {
+            segments.add(path);
+            return segments;
+        }
+        int start = 1;
+        while (true) {
+            int end = path.indexOf('/', start);
+            String segment = path.substring(start, end < 0 ? path.length() : end);
+            segments.add(segment.replace("~1", "/").replace("~0", "~"));
+            if (end < 0) {
+                return segments;
+            }
+            start = end + 1;
+        }
+    }
+
+    private static final class PathNode {
+        private final Map<String, PathNode> children = new HashMap<>();
+        private int[] conditions = new int[0];
+        private int maxIndex = -1;
+
+        PathNode child(String segment) {
+            PathNode child = children.computeIfAbsent(segment, s -> new PathNode());
+            if (!segment.isEmpty() && segment.chars().allMatch(Character::isDigit) && segment.length() < 10) {
+                maxIndex = Math.max(maxIndex, Integer.parseInt(segment));
+            }
+            return child;
+        }
+
+        void addCondition(int idx) {
+            int[] result = new int[conditions.length + 1];
+            System.arraycopy(conditions, 0, result, 0, conditions.length);
+            result[conditions.length] = idx;
+            conditions = result;
+        }
+    }
+
+    private static final class Condition {
+        private final Operator operator;
+        private final String text;
+        private final double number;
+        private final boolean numeric;
+        private final Pattern regex;
+
+        Condition(TbKeyFilterNodeConfiguration.Condition config) {
+            if (config.getOperator() == null) {
+                throw new IllegalArgumentException("Condition operator is required for " + config.getPath());
+            }
+            operator = Operator.valueOf(config.getOperator().toUpperCase());
+            text = config.getValue();
+            if (text == null && operator != Operator.EXISTS && operator != Operator.NOT_EXISTS) {
+                throw new IllegalArgumentException("Condition value is required for " + operator);
+            }
+            Double parsed = text != null ? parseDouble(text) : null;
+            numeric = parsed != null;
+            number = numeric ? parsed : 0.0;
+            if (!numeric && (operator == Operator.GT || operator == Operator.GE
+                    || operator == Operator.LT || operator == Operator.LE)) {
+                throw new IllegalArgumentException("Condition value must be a number for " + operator + ": " + text);
+            }
+            try {
+                regex = operator == Operator.MATCHES ? Pattern.compile(text) : null;
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Invalid regular expression: " + text, e);
+            }
+        }
+
+        boolean test(JsonParser parser, JsonToken token) throws IOException {
+            switch (operator) {
+                case EXISTS:
+                    return true;
+                case NOT_EXISTS:
+                    return false;
+                case EQ:
+                    return equalTo(parser, token);
+                case NE:
+                    return !equalTo(parser, token);
+                case MATCHES:
+                    return token.isScalarValue() && token != JsonToken.VALUE_NULL
+                            && regex.matcher(parser.getText()).matches();
+                default:
+                    Double value = toDouble(parser, token);
+                    if (value == null) {
+                        return false;
+                    }
+                    int cmp = Double.compare(value, number);
+                    switch (operator) {
+                        case GT:
+                            return cmp > 0;
+                        case GE:
+                            return cmp >= 0;
+                        case LT:
+                            return cmp < 0;
+                        default:
+                            return cmp <= 0;
+                    }
+            }
+        }
+
+        // Value of a path that was not found
+        boolean missing() {
+            return operator == Operator.NOT_EXISTS || operator == Operator.NE;
+        }
+
+        private boolean equalTo(JsonParser parser, JsonToken token) throws IOException {
+            if (!token.isScalarValue() || token == JsonToken.VALUE_NULL) {
+                return false;
+            }
+            if (numeric && token.isNumeric()) {
+                return parser.getDoubleValue() == number;
+            }
+            return text.equals(parser.getText());
+        }
+
+        private static Double toDouble(JsonParser parser, JsonToken token) throws IOException {
+            if (token.isNumeric()) {
+                return parser.getDoubleValue();
+            }
+            if (token == JsonToken.VALUE_STRING) {
+                return parseDouble(parser.getText());
+            }
+            return null;
+        }
+
+        private static Double parseDouble(String value) {
+            try {
+                return Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private final class Evaluation {
+        // 0 - not seen yet, 1 - holds, 2 - fails
+        private final byte[] states = new byte[conditions.length];
+        private int decided;
+        private Boolean result;
+
+        /**
+         * Records the first outcome of the condition and returns whether the
+         * result of the predicate is decided.
+         */
+        boolean decide(int idx, boolean holds) {
+            if (states[idx] != 0) {
+                return false;
+            }
+            states[idx] = holds ? (byte) 1 : (byte) 2;
+            if (holds != matchAll) {
+                // A failed condition decides AND, a holding one decides OR
+                result = holds;
+                return true;
+            }
+            if (++decided == states.length) {
+                result = matchAll;
+                return true;
+            }
+            return false;
+        }
+
+        boolean result() {
+            if (result != null) {
+                return result;
+            }
+            for (int i = 0; i < states.length; i++) {
+                boolean holds = states[i] == 0 ? conditions[i].missing() : states[i] == 1;
+                if (holds != matchAll) {
+                    return holds;
+                }
+            }
+            return matchAll;
+        }
+    }
+}
@@ -0,0 +1,469 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.filter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the last forwarded value of every originator and key.
+ * <p>
+ * Entries are identified by a 64-bit fingerprint of the originator id and the
+ * key name and hold the value as raw double bits or as a 64-bit hash of a text
+ * or structured value, so no strings or boxed numbers are retained. Each of the
+ * lock stripes is an open addressing table over flat primitive arrays with an
+ * intrusive LRU list; stripes grow on demand up to their share of the maximum
+ * size and then evict the least recently used entry. An entry older than the
+ * TTL counts as missing. All keys of one originator live in the same stripe, so
+ * a message is compared and stored under a single lock.
+ */
+@Slf4j
+final class TbLastValueCache implements TbLastValueCacheMXBean {
+
+    static final byte NUMBER = 1;
+    static final byte HASH = 2;
+    static final long HASH_SEED = 0xcbf29ce484222325L;
+
+    static final String JMX_DOMAIN = "org.thingsboard.rule.engine.node";
+    private static final AtomicLong INSTANCES = new AtomicLong();
+    static final int DEFAULT_STRIPES = 32;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe[] stripes;
+    private final int maxSize;
+    private final long ttlMs;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    private ObjectName objectName;
+
+    /**
+     * @param maxSize maximum number of originator and key entries
+     * @param ttlMs   age (ms) after which a stored value is treated as missing, 0 - never
+     */
+    TbLastValueCache(int maxSize, long ttlMs) {
+        this(maxSize, ttlMs, DEFAULT_STRIPES);
+    }
+
+    TbLastValueCache(int maxSize, long ttlMs, int stripeCount) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive");
+        }
+        if (ttlMs < 0) {
+            throw new IllegalArgumentException("TTL must not be negative");
+        }
+        int count = Integer.highestOneBit(Math.max(1, Math.min(stripeCount, maxSize)));
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(maxSize / count + (i < maxSize % count ? 1 : 0));
+        }
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Values of the monitored keys of one message.
+     */
+    static final class Sample {
+        private long[] keyHashes = new long[8];
+        private byte[] kinds = new byte[8];
+        private long[] values = new long[8];
+        private double[] deadbands = new double[8];
+        private int size;
+
+        void addNumber(long keyHash, double value, double deadband) {
+            add(keyHash, NUMBER, Double.doubleToLongBits(value), deadband);
+        }
+
+        void addHash(long keyHash, long valueHash) {
+            add(keyHash, HASH, valueHash, 0.0);
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void add(long keyHash, byte kind, long value, double deadband) {
+            if (size == keyHashes.length) {
+                int capacity = size * 2;
+                keyHashes = Arrays.copyOf(keyHashes, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+                values = Arrays.copyOf(values, capacity);
+                deadbands = Arrays.copyOf(deadbands, capacity);
+            }
+            keyHashes[size] = keyHash;
+            kinds[size] = kind;
+            values[size] = value;
+            deadbands[size] = deadband;
+            size++;
+        }
+    }
+
+    /**
+     * Compares the sample with the values stored for the originator. If any key
+     * is missing, expired or differs by more than its deadband, the whole sample
+     * is stored as the new reference and {@code true} is returned; otherwise the
+     * stored values are kept, so slow drift within the deadband is still caught.
+     */
+    boolean update(UUID originator, Sample sample, long now) {
+        long originatorHash = mix(originator.getMostSignificantBits() ^ mix(originator.getLeastSignificantBits()));
+        Stripe stripe = stripes[(int) (originatorHash >>> 32) & (stripes.length - 1)];
+        synchronized (stripe) {
+            boolean changed = false;
+            for (int i = 0; i < sample.size; i++) {
+                long key = mix(originatorHash ^ sample.keyHashes[i]);
+                int entry = stripe.find(key);
+                if (entry < 0) {
+                    misses.increment();
+                    changed = true;
+                } else if (ttlMs > 0 && now - stripe.times[entry] >= ttlMs) {
+                    expirations.increment();
+                    stripe.remove(entry);
+                    changed = true;
+                } else {
+                    hits.increment();
+                    stripe.touch(entry);
+                    changed |= differs(stripe, entry, sample, i);
+                }
+            }
+            if (changed) {
+                for (int i = 0; i < sample.size; i++) {
+                    long key = mix(originatorHash ^ sample.keyHashes[i]);
+                    int entry = stripe.find(key);
+                    if (entry < 0) {
+                        if (stripe.isFull()) {
+                            evictions.increment();
+                        }
+                        entry = stripe.insert(key);
+                    }
+                    stripe.kinds[entry] = sample.kinds[i];
+                    stripe.values[entry] = sample.values[i];
+                    stripe.times[entry] = now;
+                }
+            }
+            return changed;
+        }
+    }
+
+    void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Registers the MXBean as
+     * {@code org.thingsboard.rule.engine.node:type=TbChangeFilterNode,name=<name>,instance=<n>}. The
+     * instance key keeps the beans of an old and a new instance of the node apart
+     * while it is re-initialized, so that neither unregisters the other.
+     */
+    void register(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=TbChangeFilterNode,name=" + ObjectName.quote(name)
+                    + ",instance=" + INSTANCES.incrementAndGet());
+            this.objectName = server.registerMBean(this, objectName).getObjectName();
+        } catch (Exception e) {
+            log.warn("Failed to register change filter metrics [{}]", name, e);
+        }
+    }
+
+    void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            log.debug("Failed to unregister change filter metrics [{}]", objectName, e);
+        }
+        objectName = null;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    @Override
+    public long getSize() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hits = getHits();
+        long lookups = hits + getMisses() + getExpirations();
+        return lookups > 0 ? (double) hits / lookups : 0.0;
+    }
+
+    /**
+     * FNV-1a hash of the characters, continued from {@code hash}.
+     */
+    static long hash(long hash, char[] chars, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ chars[i]) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    static long hash(long hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    static long hash(long hash, int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    private static boolean differs(Stripe stripe, int entry, Sample sample, int i) {
+        if (stripe.kinds[entry] != sample.kinds[i]) {
+            return true;
+        }
+        double deadband = sample.deadbands[i];
+        if (sample.kinds[i] == NUMBER && deadband > 0) {
+            double delta = Math.abs(Double.longBitsToDouble(sample.values[i]) - Double.longBitsToDouble(stripe.values[entry]));
+            // NaN is never within the deadband
+            return !(delta <= deadband);
+        }
+        return stripe.values[entry] != sample.values[i];
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Linear probing table of fingerprints pointing into dense entry arrays.
+     * Removal shifts the following slots back instead of leaving tombstones.
+     * Entries are linked most recently used first; free entries are chained
+     * through {@code next}.
+     */
+    private static final class Stripe {
+        private final int maxCapacity;
+
+        private long[] slotKeys;
+        private int[] slotEntries;
+
+        private long[] keys;
+        private byte[] kinds;
+        private long[] values;
+        private long[] times;
+        private int[] prev;
+        private int[] next;
+
+        private int head;
+        private int tail;
+        private int freeHead;
+        private int allocated;
+        private int size;
+
+        Stripe(int maxCapacity) {
+            this.maxCapacity = maxCapacity;
+            clear();
+        }
+
+        void clear() {
+            int capacity = Math.min(INITIAL_STRIPE_CAPACITY, maxCapacity);
+            keys = new long[capacity];
+            kinds = new byte[capacity];
+            values = new long[capacity];
+            times = new long[capacity];
+            prev = new int[capacity];
+            next = new int[capacity];
+            slotKeys = new long[tableSize(capacity)];
+            slotEntries = new int[slotKeys.length];
+            head = -1;
+            tail = -1;
+            freeHead = -1;
+            allocated = 0;
+            size = 0;
+        }
+
+        boolean isFull() {
+            return size == maxCapacity;
+        }
+
+        int find(long key) {
+            int mask = slotKeys.length - 1;
+            for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+                int entry = slotEntries[slot];
+                if (entry == 0) {
+                    return -1;
+                }
+                if (slotKeys[slot] == key) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        /**
+         * Adds an entry for a key that is not in the table, evicting the least
+         * recently used entry when the stripe is full.
+         */
+        int insert(long key) {
+            if (size == keys.length) {
+                if (size < maxCapacity) {
+                    grow();
+                } else {
+                    remove(tail);
+                }
+            }
+            int entry;
+            if (freeHead >= 0) {
+                entry = freeHead;
+                freeHead = next[entry];
+            } else {
+                entry = allocated++;
+            }
+            keys[entry] = key;
+            put(key, entry);
+            linkFirst(entry);
+            size++;
+            return entry;
+        }
+
+        void remove(int entry) {
+            unlink(entry);
+            int mask = slotKeys.length - 1;
+            int hole = (int) keys[entry] & mask;
+            while (slotEntries[hole] != entry + 1) {
+                hole = (hole + 1) & mask;
+            }
+            slotEntries[hole] = 0;
+            for (int slot = (hole + 1) & mask; slotEntries[slot] != 0; slot = (slot + 1) & mask) {
+                int home = (int) slotKeys[slot] & mask;
+                // Move back unless the slot's home lies between the hole and the slot
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    slotKeys[hole] = slotKeys[slot];
+                    slotEntries[hole] = slotEntries[slot];
+                    slotEntries[slot] = 0;
+                    hole = slot;
+                }
+            }
+            next[entry] = freeHead;
+            freeHead = entry;
+            size--;
+        }
+
+        void touch(int entry) {
+            if (entry != head) {
+                unlink(entry);
+                linkFirst(entry);
+            }
+        }
+
+        private void put(long key, int entry) {
+            int mask = slotKeys.length - 1;
+            int slot = (int) key & mask;
+            while (slotEntries[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slotKeys[slot] = key;
+            slotEntries[slot] = entry + 1;
+        }
+
+        private void grow() {
+            int capacity = (int) Math.min((long) keys.length * 2, maxCapacity);
+            keys = Arrays.copyOf(keys, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            values = Arrays.copyOf(values, capacity);
+            times = Arrays.copyOf(times, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            next = Arrays.copyOf(next, capacity);
+            slotKeys = new long[tableSize(capacity)];
+            slotEntries = new int[slotKeys.length];
+            for (int entry = head; entry >= 0; entry = next[entry]) {
+                put(keys[entry], entry);
+            }
+        }
+
+        private void linkFirst(int entry) {
+            prev[entry] = -1;
+            next[entry] = head;
+            if (head >= 0) {
+                prev[head] = entry;
+            } else {
+                tail = entry;
+            }
+            head = entry;
+        }
+
+        private void unlink(int entry) {
+            int p = prev[entry];
+            int n = next[entry];
+            if (p >= 0) {
+                next[p] = n;
+            } else {
+                head = n;
+            }
+            if (n >= 0) {
+                prev[n] = p;
+            } else {
+                tail = p;
+            }
+        }
+
+        private static int tableSize(int capacity) {
+            // Load factor of at most 0.5 keeps probe sequences short
+            return Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.transform;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.api.RuleNode;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNode;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.rule.engine.api.util.TbNodeUtils;
+import org.thingsboard.rule.engine.node.util.TbJsonFieldScanner;
+import org.thingsboard.server.common.data.plugin.ComponentType;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+@RuleNode(
+        type = ComponentType.TRANSFORMATION,
+        name = "aggregate telemetry",
+        configClazz = TbAggregateTelemetryNodeConfiguration.class,
+        nodeDescription = "Calculates sum, min, max, count, mean and variance of groups of telemetry fields in one pass.",
+        nodeDetails = "Each group selects fields of the Message payload by prefix, regular expression or a list of keys. " +
+                "Results are named <code>Output Key</code> + aggregate, e.g. <code>temperatureMax</code>, and added to the new Message payload, the Message Metadata or both.",
+        uiResources = {"static/rulenode/custom-nodes-config.js"},
+        configDirective = "tbTransformationNodeAggregateTelemetryConfig"
+)
+public class TbAggregateTelemetryNode implements TbNode {
+
+    enum MatchType {
+        PREFIX, REGEX, KEYS
+    }
+
+    enum Aggregate {
+        SUM("Sum"), MIN("Min"), MAX("Max"), COUNT("Count"), MEAN("Mean"), VARIANCE("Variance");
+
+        private final String suffix;
+
+        Aggregate(String suffix) {
+            this.suffix = suffix;
+        }
+    }
+
+    enum Destination {
+        DATA, METADATA, BOTH
+    }
+
+    Group[] groups;
+    Destination destination;
+
+    @Override
+    public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
+        var config = TbNodeUtils.convert(configuration, TbAggregateTelemetryNodeConfiguration.class);
+        if (config.getGroups() == null || config.getGroups().isEmpty()) {
+            throw new TbNodeException("At least one aggregation group must be configured");
+        }
+        try {
+            destination = config.getDestination() != null ? Destination.valueOf(config.getDestination().toUpperCase()) : Destination.DATA;
+            groups = new Group[config.getGroups().size()];
+            for (int i = 0; i < groups.length; i++) {
+                groups[i] = new Group(config.getGroups().get(i));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new TbNodeException(e);
+        }
+    }
+
+    @Override
+    public void onMsg(TbContext ctx, TbMsg msg) {
+        Accumulator accumulator = new Accumulator(groups.length);
+        TbJsonFieldScanner.scanNumericFields(msg.getData(), accumulator);
+        if (accumulator.total == 0) {
+            ctx.tellFailure(msg, new TbNodeException("Message doesn't contain any of the aggregated keys"));
+            return;
+        }
+        ObjectNode data = destination != Destination.METADATA ? JacksonUtil.newObjectNode() : null;
+        TbMsgMetaData metaData = destination != Destination.DATA ? msg.getMetaData().copy() : null;
+        for (int i = 0; i < groups.length; i++) {
+            Group group = groups[i];
+            long count = accumulator.count[i];
+            for (Aggregate aggregate : group.aggregates) {
+                if (count == 0 && aggregate != Aggregate.COUNT) {
+                    continue;
+                }
+                String key = group.outputKey + aggregate.suffix;
+                if (aggregate == Aggregate.COUNT) {
+                    if (data != null) {
+                        data.put(key, count);
+                    }
+                    if (metaData != null) {
+                        metaData.putValue(key, Long.toString(count));
+                    }
+                } else {
+                    double value = accumulator.value(aggregate, i);
+                    if (data != null) {
+                        data.put(key, value);
+                    }
+                    if (metaData != null) {
+                        metaData.putValue(key, Double.toString(value));
+                    }
+                }
+            }
+        }
+        TbMsg transformedMsg = msg.transform()
+                .data(data != null ? JacksonUtil.toString(data) : msg.getData())
+                .metaData(metaData != null ? metaData : msg.getMetaData())
+                .build();
+        ctx.tellSuccess(transformedMsg);
+    }
+
+    static final class Group {
+        private final MatchType matchType;
+        private final String prefix;
+        private final Pattern regex;
+        private final Set<String> keys;
+        private final String outputKey;
+        private final Aggregate[] aggregates;
+
+        Group(TbAggregateTelemetryNodeConfiguration.AggregationGroup config) {
+            matchType = config.getMatchType() != null ? MatchType.valueOf(config.getMatchType().toUpperCase()) : MatchType.PREFIX;
+            if (matchType != MatchType.KEYS && (config.getPattern() == null || config.getPattern().isEmpty())) {
+                throw new IllegalArgumentException("Pattern is required for " + matchType + " match type");
+            }
+            if (matchType == MatchType.KEYS && (config.getKeys() == null || config.getKeys().isEmpty())) {
+                throw new IllegalArgumentException("Keys are required for KEYS match type");
+            }
+            if (config.getOutputKey() == null || config.getOutputKey().isEmpty()) {
+                throw new IllegalArgumentException("Output key is required");
+            }
+            prefix = matchType == MatchType.PREFIX ? config.getPattern() : null;
+            try {
+                regex = matchType == MatchType.REGEX ? Pattern.compile(config.getPattern()) : null;
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Invalid regular expression: " + config.getPattern(), e);
+            }
+            keys = matchType == MatchType.KEYS ? new HashSet<>(config.getKeys()) : null;
+            outputKey = config.getOutputKey();
+            List<String> names = config.getAggregates() != null && !config.getAggregates().isEmpty()
+                    ? config.getAggregates() : List.of(Aggregate.SUM.name());
+            aggregates = names.stream().map(name -> Aggregate.valueOf(name.toUpperCase())).distinct().toArray(Aggregate[]::new);
+        }
+
+        boolean matches(String field) {
+            switch (matchType) {
+                case PREFIX:
+                    return field.startsWith(prefix);
+                case REGEX:
+                    return regex.matcher(field).matches();
+                default:
+                    return keys.contains(field);
+            }
+        }
+    }
+
+    /**
+     * Per message accumulators, one slot per group. Mean and variance use
+     * Welford's online algorithm.
+     */
+    private final class Accumulator implements TbJsonFieldScanner.NumericFieldVisitor {
+        private final boolean[] matched;
+        private final long[] count;
+        private final double[] sum;
+        private final double[] min;
+        private final double[] max;
+        private final double[] mean;
+        private final double[] m2;
+        private long total;
+
+        Accumulator(int size) {
+            matched = new boolean[size];
+            count = new long[size];
+            sum = new double[size];
+            min = new double[size];
+            max = new double[size];
+            mean = new double[size];
+            m2 = new double[size];
+        }
+
+        @Override
+        public boolean test(String field) {
+            boolean any = false;
+            for (int i = 0; i < groups.length; i++) {
+                matched[i] = groups[i].matches(field);
+                any |= matched[i];
+            }
+            return any;
+        }
+
+        @Override
+        public boolean accept(String field, double value) {
+            total++;
+            for (int i = 0; i < groups.length; i++) {
+                if (!matched[i]) {
+                    continue;
+                }
+                long n = ++count[i];
+                sum[i] += value;
+                if (n == 1) {
+                    min[i] = value;
+                    max[i] = value;
+                } else {
+                    min[i] = Math.min(min[i], value);
+                    max[i] = Math.max(max[i], value);
+                }
+                double delta = value - mean[i];
+                mean[i] += delta / n;
+                m2[i] += delta * (value - mean[i]);
+            }
+            return true;
+        }
+
+        double value(Aggregate aggregate, int i) {
+            switch (aggregate) {
+                case SUM:
+                    return sum[i];
+                case MIN:
+                    return min[i];
+                case MAX:
+                    return max[i];
+                case MEAN:
+                    return mean[i];
+                case VARIANCE:
+                    return m2[i] / count[i];
+                default:
+                    return count[i];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.transform;
+
+import lombok.Data;
+import org.thingsboard.rule.engine.api.NodeConfiguration;
+
+import java.util.List;
+
+@Data
+public class TbAggregateTelemetryNodeConfiguration implements NodeConfiguration<TbAggregateTelemetryNodeConfiguration> {
+
+    private List<AggregationGroup> groups;
+    /**
+     * Where the results are written: DATA, METADATA or BOTH
+     */
+    private String destination;
+
+    @Data
+    public static class AggregationGroup {
+        /**
+         * How fields are selected: PREFIX, REGEX or KEYS
+         */
+        private String matchType;
+        /**
+         * Field name prefix or regular expression, depending on the match type
+         */
+        private String pattern;
+        /**
+         * Field names for the KEYS match type
+         */
+        private List<String> keys;
+        /**
+         * Base name of the results, e.g. "temperature" gives "temperatureSum",
+         * "temperatureMax", ...
+         */
+        private String outputKey;
+        /**
+         * Any of SUM, MIN, MAX, COUNT, MEAN, VARIANCE
+         */
+        private List<String> aggregates;
+    }
+
+    @Override
+    public TbAggregateTelemetryNodeConfiguration defaultConfiguration() {
+        var group = new AggregationGroup();
+        group.setMatchType("PREFIX");
+        group.setPattern("temperature");
+        group.setOutputKey("temperature");
+        group.setAggregates(List.of("SUM", "MIN", "MAX", "COUNT", "MEAN"));
+        var configuration = new TbAggregateTelemetryNodeConfiguration();
+        configuration.setGroups(List.of(group));
+        configuration.setDestination("DATA");
+        return configuration;
+    }
+
+}
@@ -15,7 +15,6 @@
  */
 package org.thingsboard.rule.engine.node.transform;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.rule.engine.api.RuleNode;
 import org.thingsboard.rule.engine.api.TbContext;
@@ -23,11 +22,10 @@ import org.thingsboard.rule.engine.api.TbNode;
 import org.thingsboard.rule.engine.api.TbNodeConfiguration;
 import org.thingsboard.rule.engine.api.TbNodeException;
 import org.thingsboard.rule.engine.api.util.TbNodeUtils;
+import org.thingsboard.rule.engine.node.util.TbJsonFieldScanner;
 import org.thingsboard.server.common.data.plugin.ComponentType;
 import org.thingsboard.server.common.msg.TbMsg;
 
-import java.util.Iterator;
-
 @RuleNode(
         type = ComponentType.TRANSFORMATION,
         name = "calculate sum",
@@ -51,22 +49,12 @@ public class TbCalculateSumNode implements TbNode {
 
     @Override
     public void onMsg(TbContext ctx, TbMsg msg) {
-        double sum = 0;
-        boolean hasRecords = false;
-        JsonNode data = JacksonUtil.toJsonNode(msg.getData());
-        Iterator<String> iterator = data.fieldNames();
-        while (iterator.hasNext()) {
-            String field = iterator.next();
-            if (field.startsWith(inputKey)) {
-                hasRecords = true;
-                sum += data.get(field).asDouble();
-            }
-        }
-        if (hasRecords) {
+        TbJsonFieldScanner.PrefixSum prefixSum = TbJsonFieldScanner.sumByPrefix(msg.getData(), inputKey);
+        if (prefixSum.getCount() > 0) {
             var newDataWithSum = JacksonUtil.newObjectNode();
 
             TbMsg transformedMsg = msg.transform()
-                    .data(JacksonUtil.toString(newDataWithSum.put(outputKey, sum)))
+                    .data(JacksonUtil.toString(newDataWithSum.put(outputKey, prefixSum.getSum())))
                     .build();
 
             ctx.tellSuccess(transformedMsg);
@@ -0,0 +1,208 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.transform;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.api.RuleNode;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNode;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.rule.engine.api.util.TbNodeUtils;
+import org.thingsboard.rule.engine.node.util.TbJsonFieldScanner;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.msg.TbMsgType;
+import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
+import org.thingsboard.server.common.data.plugin.ComponentType;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+@Slf4j
+@RuleNode(
+        type = ComponentType.TRANSFORMATION,
+        name = "window aggregate",
+        configClazz = TbWindowAggregateNodeConfiguration.class,
+        nodeDescription = "Aggregates telemetry of each originator over tumbling or sliding time windows.",
+        nodeDetails = "Fields of the Message payload which begin with the <code>Input Key</code> are accumulated per originator. " +
+                "Incoming messages are acknowledged and, when a window closes, one message with the sum, min, max, count and average " +
+                "of the window is sent to the Success chain. Open windows are flushed when the node is stopped.",
+        uiResources = {"static/rulenode/custom-nodes-config.js"},
+        configDirective = "tbTransformationNodeWindowAggregateConfig"
+)
+public class TbWindowAggregateNode implements TbNode {
+
+    enum WindowType {
+        TUMBLING, SLIDING
+    }
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    String inputKey;
+    String outputKey;
+    long paneMs;
+    int panes;
+    TbWindowState state;
+
+    private TbContext ctx;
+    private long lastClosedPane;
+    private UUID tickId;
+
+    @Override
+    public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
+        var config = TbNodeUtils.convert(configuration, TbWindowAggregateNodeConfiguration.class);
+        WindowType windowType;
+        try {
+            windowType = WindowType.valueOf(config.getWindowType().toUpperCase());
+        } catch (RuntimeException e) {
+            throw new TbNodeException("Unsupported window type: " + config.getWindowType());
+        }
+        if (config.getWindowSizeMs() <= 0) {
+            throw new TbNodeException("Window size must be positive");
+        }
+        if (config.getMaxOriginators() <= 0) {
+            throw new TbNodeException("Max originators must be positive");
+        }
+        paneMs = windowType == WindowType.SLIDING ? config.getWindowSlideMs() : config.getWindowSizeMs();
+        if (paneMs <= 0 || config.getWindowSizeMs() % paneMs != 0) {
+            throw new TbNodeException("Window slide must be positive and divide the window size");
+        }
+        long paneCount = config.getWindowSizeMs() / paneMs;
+        if (paneCount > TbWindowState.MAX_PANE_SLOTS / config.getMaxOriginators()) {
+            throw new TbNodeException("Window of " + paneCount + " panes for " + config.getMaxOriginators()
+                    + " originators exceeds the limit of " + TbWindowState.MAX_PANE_SLOTS + " panes");
+        }
+        panes = (int) paneCount;
+        inputKey = config.getInputKey();
+        outputKey = config.getOutputKey();
+        state = new TbWindowState(panes, config.getMaxOriginators());
+        this.ctx = ctx;
+        long now = clock.getAsLong();
+        lastClosedPane = Math.floorDiv(now, paneMs) - 1;
+        scheduleTick(ctx, now);
+    }
+
+    @Override
+    public void onMsg(TbContext ctx, TbMsg msg) {
+        long now = clock.getAsLong();
+        if (msg.isTypeOf(TbMsgType.GENERATOR_NODE_SELF_MSG) && ctx.getSelfId().equals(msg.getOriginator())) {
+            if (msg.getId().equals(tickId)) {
+                closeWindows(ctx, now);
+                scheduleTick(ctx, now);
+            }
+            return;
+        }
+        closeWindows(ctx, now);
+        MessageAggregate aggregate = new MessageAggregate();
+        TbJsonFieldScanner.scanNumericFields(msg.getData(), aggregate);
+        if (aggregate.count == 0) {
+            ctx.tellFailure(msg, new TbNodeException("Message doesn't contain the key: " + inputKey));
+            return;
+        }
+        if (!state.add(msg.getOriginator(), Math.floorDiv(now, paneMs), aggregate.count, aggregate.sum, aggregate.min, aggregate.max)) {
+            ctx.tellFailure(msg, new TbNodeException("Max originators limit reached: " + state.size()));
+            return;
+        }
+        ctx.ack(msg);
+    }
+
+    @Override
+    public void destroy() {
+        if (ctx == null) {
+            return;
+        }
+        try {
+            long currentPane = Math.floorDiv(clock.getAsLong(), paneMs);
+            closeWindows(ctx, currentPane * paneMs);
+            emit(ctx, currentPane);
+        } catch (Exception e) {
+            log.warn("Failed to flush open windows", e);
+        }
+        state.clear();
+    }
+
+    private void closeWindows(TbContext ctx, long now) {
+        long currentPane = Math.floorDiv(now, paneMs);
+        // windows ending with older panes hold no data anymore
+        for (long pane = Math.max(lastClosedPane + 1, currentPane - panes); pane < currentPane; pane++) {
+            emit(ctx, pane);
+        }
+        lastClosedPane = Math.max(lastClosedPane, currentPane - 1);
+    }
+
+    private void emit(TbContext ctx, long lastWindowPane) {
+        long windowEnd = (lastWindowPane + 1) * paneMs;
+        long windowStart = windowEnd - panes * paneMs;
+        state.emit(lastWindowPane, (originator, count, sum, min, max) ->
+                ctx.enqueueForTellNext(windowMsg(originator, windowStart, windowEnd, count, sum, min, max), TbNodeConnectionType.SUCCESS));
+    }
+
+    private TbMsg windowMsg(EntityId originator, long windowStart, long windowEnd, long count, double sum, double min, double max) {
+        var data = JacksonUtil.newObjectNode()
+                .put(outputKey + "Sum", sum)
+                .put(outputKey + "Min", min)
+                .put(outputKey + "Max", max)
+                .put(outputKey + "Count", count)
+                .put(outputKey + "Avg", sum / count);
+        var metaData = new TbMsgMetaData();
+        metaData.putValue("ts", Long.toString(windowStart));
+        metaData.putValue("windowStart", Long.toString(windowStart));
+        metaData.putValue("windowEnd", Long.toString(windowEnd));
+        return TbMsg.newMsg()
+                .type(TbMsgType.POST_TELEMETRY_REQUEST)
+                .originator(originator)
+                .metaData(metaData)
+                .data(JacksonUtil.toString(data))
+                .build();
+    }
+
+    private void scheduleTick(TbContext ctx, long now) {
+        TbMsg tick = TbMsg.newMsg()
+                .type(TbMsgType.GENERATOR_NODE_SELF_MSG)
+                .originator(ctx.getSelfId())
+                .metaData(TbMsgMetaData.EMPTY)
+                .data(TbMsg.EMPTY_STRING)
+                .build();
+        tickId = tick.getId();
+        long nextPaneStart = (Math.floorDiv(now, paneMs) + 1) * paneMs;
+        ctx.tellSelf(tick, nextPaneStart - now);
+    }
+
+    private class MessageAggregate implements TbJsonFieldScanner.NumericFieldVisitor {
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        @Override
+        public boolean test(String field) {
+            return field.startsWith(inputKey);
+        }
+
+        @Override
+        public boolean accept(String field, double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.transform;
+
+import lombok.Data;
+import org.thingsboard.rule.engine.api.NodeConfiguration;
+
+@Data
+public class TbWindowAggregateNodeConfiguration implements NodeConfiguration<TbWindowAggregateNodeConfiguration> {
+
+    private String inputKey;
+    private String outputKey;
+    /**
+     * TUMBLING or SLIDING
+     */
+    private String windowType;
+    private long windowSizeMs;
+    /**
+     * Emission period of a SLIDING window, must divide the window size
+     */
+    private long windowSlideMs;
+    /**
+     * Upper bound of originators with open windows, messages from new originators
+     * are routed to Failure once it is reached
+     */
+    private int maxOriginators;
+
+    @Override
+    public TbWindowAggregateNodeConfiguration defaultConfiguration() {
+        var configuration = new TbWindowAggregateNodeConfiguration();
+        configuration.setInputKey("temperature");
+        configuration.setOutputKey("temperature");
+        configuration.setWindowType("TUMBLING");
+        configuration.setWindowSizeMs(60000);
+        configuration.setWindowSlideMs(60000);
+        configuration.setMaxOriginators(100000);
+        return configuration;
+    }
+
+}
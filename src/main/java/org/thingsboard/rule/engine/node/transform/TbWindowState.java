@@ -0,0 +1,265 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.transform;
+
+import org.thingsboard.server.common.data.id.EntityId;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Rolling window state of all originators kept in flat primitive arrays. Every
+ * originator owns a slot with a ring of {@code panes} partial aggregates; a
+ * window is the merge of its last {@code panes} panes. Slots of originators
+ * without data in any open window are recycled. Slots are looked up in an
+ * open addressing table keyed by the two halves of the originator UUID.
+ * <p>
+ * Not thread safe, meant to be used by the single rule node actor thread.
+ */
+final class TbWindowState {
+
+    interface WindowConsumer {
+        void accept(EntityId originator, long count, double sum, double min, double max);
+    }
+
+    /**
+     * Largest number of panes of all originators together, bounded by the
+     * maximum array length. Keeps every {@code slot * panes} index in int range.
+     */
+    static final int MAX_PANE_SLOTS = Integer.MAX_VALUE - 8;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int EMPTY = -1;
+
+    private final int panes;
+    private final int maxOriginators;
+
+    // slot of the originator at every position of the table, EMPTY if none
+    private int[] table;
+    private int tableMask;
+    private int originatorCount;
+
+    private EntityId[] originators;
+    private long[] msbs;
+    private long[] lsbs;
+    private long[] lastPane;
+    private long[] paneIds;
+    private long[] counts;
+    private double[] sums;
+    private double[] mins;
+    private double[] maxs;
+    private int[] freeSlots;
+    private int freeCount;
+    private int used;
+
+    TbWindowState(int panes, int maxOriginators) {
+        if ((long) panes * maxOriginators > MAX_PANE_SLOTS) {
+            throw new IllegalArgumentException("Window state of " + maxOriginators + " originators with " + panes
+                    + " panes exceeds " + MAX_PANE_SLOTS + " panes");
+        }
+        this.panes = panes;
+        this.maxOriginators = maxOriginators;
+        allocate(Math.min(INITIAL_CAPACITY, maxOriginators));
+    }
+
+    /**
+     * Merges a partial aggregate into the pane of the originator. Returns
+     * {@code false} if the originator is new and the limit is reached.
+     */
+    boolean add(EntityId originator, long pane, long count, double sum, double min, double max) {
+        UUID id = originator.getId();
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int slot = table[find(originator, msb, lsb)];
+        if (slot == EMPTY) {
+            slot = allocateSlot();
+            if (slot < 0) {
+                return false;
+            }
+            originators[slot] = originator;
+            msbs[slot] = msb;
+            lsbs[slot] = lsb;
+            // found again as allocating the slot may have grown the table
+            table[find(originator, msb, lsb)] = slot;
+            originatorCount++;
+            Arrays.fill(paneIds, slot * panes, (slot + 1) * panes, Long.MIN_VALUE);
+        }
+        int idx = slot * panes + (int) Math.floorMod(pane, (long) panes);
+        if (paneIds[idx] != pane) {
+            paneIds[idx] = pane;
+            counts[idx] = count;
+            sums[idx] = sum;
+            mins[idx] = min;
+            maxs[idx] = max;
+        } else {
+            counts[idx] += count;
+            sums[idx] += sum;
+            mins[idx] = Math.min(mins[idx], min);
+            maxs[idx] = Math.max(maxs[idx], max);
+        }
+        lastPane[slot] = pane;
+        return true;
+    }
+
+    /**
+     * Passes the window made of the panes up to {@code lastWindowPane} of every
+     * originator with data in it, then frees the originators that have no data
+     * for later windows.
+     */
+    void emit(long lastWindowPane, WindowConsumer consumer) {
+        long firstWindowPane = lastWindowPane - panes + 1;
+        for (int slot = 0; slot < used; slot++) {
+            EntityId originator = originators[slot];
+            if (originator == null) {
+                continue;
+            }
+            long count = 0;
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int idx = slot * panes, end = idx + panes; idx < end; idx++) {
+                long pane = paneIds[idx];
+                if (pane >= firstWindowPane && pane <= lastWindowPane) {
+                    count += counts[idx];
+                    sum += sums[idx];
+                    min = Math.min(min, mins[idx]);
+                    max = Math.max(max, maxs[idx]);
+                }
+            }
+            if (count > 0) {
+                consumer.accept(originator, count, sum, min, max);
+            }
+            if (lastPane[slot] <= firstWindowPane) {
+                free(slot);
+            }
+        }
+    }
+
+    int size() {
+        return originatorCount;
+    }
+
+    void clear() {
+        Arrays.fill(table, EMPTY);
+        originatorCount = 0;
+        Arrays.fill(originators, null);
+        freeCount = 0;
+        used = 0;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (used == originators.length) {
+            if (used >= maxOriginators) {
+                return -1;
+            }
+            allocate((int) Math.min((long) used * 2, maxOriginators));
+        }
+        return used++;
+    }
+
+    private void free(int slot) {
+        remove(find(originators[slot], msbs[slot], lsbs[slot]));
+        originators[slot] = null;
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Position of the originator in the table, or of the empty position where it
+     * belongs.
+     */
+    private int find(EntityId originator, long msb, long lsb) {
+        int pos = hash(msb, lsb) & tableMask;
+        int slot;
+        while ((slot = table[pos]) != EMPTY) {
+            // ids of different entity types may share the UUID
+            if (msbs[slot] == msb && lsbs[slot] == lsb && originators[slot].equals(originator)) {
+                return pos;
+            }
+            pos = (pos + 1) & tableMask;
+        }
+        return pos;
+    }
+
+    /**
+     * Empties the position and shifts back the entries of the probe sequence
+     * behind it, so lookups don't need tombstones.
+     */
+    private void remove(int pos) {
+        originatorCount--;
+        int gap = pos;
+        pos = (pos + 1) & tableMask;
+        int slot;
+        while ((slot = table[pos]) != EMPTY) {
+            int home = hash(msbs[slot], lsbs[slot]) & tableMask;
+            // the entry may fill the gap unless its home lies between the gap and itself
+            if (((pos - home) & tableMask) >= ((pos - gap) & tableMask)) {
+                table[gap] = slot;
+                gap = pos;
+            }
+            pos = (pos + 1) & tableMask;
+        }
+        table[gap] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        // at most half full, a power of two for masking
+        int tableSize = (int) Math.min(Long.highestOneBit(Math.max(2L * capacity - 1, 1)) << 1, 1 << 30);
+        if (table != null && table.length >= tableSize) {
+            return;
+        }
+        int[] old = table;
+        table = new int[tableSize];
+        tableMask = tableSize - 1;
+        Arrays.fill(table, EMPTY);
+        if (old == null) {
+            return;
+        }
+        for (int slot : old) {
+            if (slot != EMPTY) {
+                int pos = hash(msbs[slot], lsbs[slot]) & tableMask;
+                while (table[pos] != EMPTY) {
+                    pos = (pos + 1) & tableMask;
+                }
+                table[pos] = slot;
+            }
+        }
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate(int capacity) {
+        originators = originators == null ? new EntityId[capacity] : Arrays.copyOf(originators, capacity);
+        msbs = msbs == null ? new long[capacity] : Arrays.copyOf(msbs, capacity);
+        lsbs = lsbs == null ? new long[capacity] : Arrays.copyOf(lsbs, capacity);
+        lastPane = lastPane == null ? new long[capacity] : Arrays.copyOf(lastPane, capacity);
+        freeSlots = freeSlots == null ? new int[capacity] : Arrays.copyOf(freeSlots, capacity);
+        rehash(capacity);
+        // bounded by MAX_PANE_SLOTS, checked in the constructor
+        int size = Math.toIntExact((long) capacity * panes);
+        paneIds = paneIds == null ? new long[size] : Arrays.copyOf(paneIds, size);
+        counts = counts == null ? new long[size] : Arrays.copyOf(counts, size);
+        sums = sums == null ? new double[size] : Arrays.copyOf(sums, size);
+        mins = mins == null ? new double[size] : Arrays.copyOf(mins, size);
+        maxs = maxs == null ? new double[size] : Arrays.copyOf(maxs, size);
+    }
+
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Single pass scanner over the top-level fields of a JSON object message. Reads
+ * the payload with a streaming {@link JsonParser} instead of building a Jackson
+ * tree and skips nested values that are not needed.
+ */
+public final class TbJsonFieldScanner {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private TbJsonFieldScanner() {
+    }
+
+    /**
+     * Visitor of the numeric values of top-level fields.
+     */
+    public interface NumericFieldVisitor {
+
+        /**
+         * Whether the value of the field is needed. Values of rejected fields are
+         * skipped without being parsed.
+         */
+        boolean test(String field);
+
+        /**
+         * Receives the value of an accepted field, converted the same way as
+         * {@code JsonNode.asDouble()}. Returns {@code false} to stop scanning.
+         */
+        boolean accept(String field, double value);
+    }
+
+    /**
+     * Sum and count of the fields matched by {@link #sumByPrefix(String, String)}.
+     */
+    public static final class PrefixSum {
+        private double sum;
+        private int count;
+
+        public double getSum() {
+            return sum;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Returns whether the JSON object has a top-level field with the given name.
+     * Stops at the first match.
+     */
+    public static boolean containsKey(String json, String key) {
+        if (key == null || json == null || json.isEmpty()) {
+            return false;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                if (key.equals(parser.currentName())) {
+                    return true;
+                }
+                parser.nextToken();
+                parser.skipChildren();
+            }
+            return false;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("The given string value cannot be transformed to Json object: " + json, e);
+        }
+    }
+
+    /**
+     * Sums the values of all top-level fields whose names start with the prefix.
+     */
+    public static PrefixSum sumByPrefix(String json, String prefix) {
+        PrefixSum result = new PrefixSum();
+        scanNumericFields(json, new NumericFieldVisitor() {
+            @Override
+            public boolean test(String field) {
+                return field.startsWith(prefix);
+            }
+
+            @Override
+            public boolean accept(String field, double value) {
+                result.sum += value;
+                result.count++;
+                return true;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Passes the numeric value of every top-level field accepted by the visitor.
+     * Returns {@code false} if the JSON is empty or not an object.
+     *
+     * @throws IllegalArgumentException if the JSON is malformed
+     */
+    public static boolean scanNumericFields(String json, NumericFieldVisitor visitor) {
+        if (json == null || json.isEmpty()) {
+            return false;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if (!visitor.test(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                double value = toDouble(parser, token);
+                if (!visitor.accept(field, value)) {
+                    break;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("The given string value cannot be transformed to Json object: " + json, e);
+        }
+    }
+
+    private static double toDouble(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_STRING:
+                try {
+                    return Double.parseDouble(parser.getText().trim());
+                } catch (NumberFormatException e) {
+                    return 0.0;
+                }
+            case VALUE_TRUE:
+                return 1.0;
+            case START_OBJECT:
+            case START_ARRAY:
+                parser.skipChildren();
+                return 0.0;
+            default:
+                return 0.0;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.util;
+
+import org.thingsboard.rule.engine.api.util.TbNodeUtils;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pattern of {@link TbNodeUtils#processPattern(String, TbMsg)} parsed once.
+ * Constant patterns resolve to themselves and patterns made of literals and
+ * <code>${metadata_key}</code> placeholders resolve with one metadata lookup
+ * per placeholder. Patterns with <code>$[data_key]</code> placeholders are
+ * delegated to {@link TbNodeUtils}. As there, placeholders without a value are
+ * kept literally.
+ */
+public final class TbMsgTemplate {
+
+    private static final String METADATA_PREFIX = "${";
+    private static final String DATA_PREFIX = "$[";
+
+    private final String pattern;
+    private final boolean delegated;
+    // literals.length == keys.length + 1, literal i precedes key i
+    private final String[] literals;
+    private final String[] keys;
+    private final String[] placeholders;
+
+    private TbMsgTemplate(String pattern, boolean delegated, String[] literals, String[] keys) {
+        this.pattern = pattern;
+        this.delegated = delegated;
+        this.literals = literals;
+        this.keys = keys;
+        this.placeholders = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            placeholders[i] = METADATA_PREFIX + keys[i] + "}";
+        }
+    }
+
+    public static TbMsgTemplate compile(String pattern) {
+        if (pattern.contains(DATA_PREFIX)) {
+            return new TbMsgTemplate(pattern, true, new String[]{pattern}, new String[0]);
+        }
+        List<String> literals = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int pos = 0;
+        while (pos < pattern.length()) {
+            int start = pattern.indexOf(METADATA_PREFIX, pos);
+            int end = start >= 0 ? pattern.indexOf('}', start + METADATA_PREFIX.length()) : -1;
+            if (start < 0 || end < 0) {
+                literal.append(pattern, pos, pattern.length());
+                break;
+            }
+            literal.append(pattern, pos, start);
+            literals.add(literal.toString());
+            literal.setLength(0);
+            keys.add(pattern.substring(start + METADATA_PREFIX.length(), end));
+            pos = end + 1;
+        }
+        literals.add(literal.toString());
+        return new TbMsgTemplate(pattern, false, literals.toArray(new String[0]), keys.toArray(new String[0]));
+    }
+
+    public boolean isConstant() {
+        return !delegated && keys.length == 0;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public String resolve(TbMsg msg) {
+        if (delegated) {
+            return TbNodeUtils.processPattern(pattern, msg);
+        }
+        if (keys.length == 0) {
+            return literals[0];
+        }
+        TbMsgMetaData metaData = msg.getMetaData();
+        if (keys.length == 1 && literals[0].isEmpty() && literals[1].isEmpty()) {
+            String value = metaData.getValue(keys[0]);
+            return value != null ? value : placeholders[0];
+        }
+        StringBuilder result = new StringBuilder(pattern.length() + 16);
+        for (int i = 0; i < keys.length; i++) {
+            result.append(literals[i]);
+            String value = metaData.getValue(keys[i]);
+            result.append(value != null ? value : placeholders[i]);
+        }
+        return result.append(literals[keys.length]).toString();
+    }
+
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TbLatencyHistogramTest {
+
+    @Test
+    void givenUniformValues_whenSnapshot_thenPercentilesWithinBucketError() {
+        TbLatencyHistogram histogram = new TbLatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        TbLatencySnapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount()).isEqualTo(10000);
+        assertThat(snapshot.getMeanUs()).isCloseTo(5000.5, within(0.01));
+        assertThat(snapshot.getP50Us()).isCloseTo(5000, within(5000 * 0.07));
+        assertThat(snapshot.getP99Us()).isCloseTo(9900, within(9900 * 0.07));
+        assertThat(snapshot.getMaxUs()).isEqualTo(10000);
+    }
+
+    @Test
+    void givenBucketIndex_whenUpperBound_thenValueFallsInBucket() {
+        for (long value : new long[]{0, 15, 16, 31, 32, 33, 1000, 123456789, 1L << 40}) {
+            int index = TbLatencyHistogram.index(value);
+            assertThat(TbLatencyHistogram.upperBound(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                assertThat(TbLatencyHistogram.upperBound(index - 1)).isLessThan(value);
+            }
+        }
+    }
+
+    @Test
+    void givenNoValues_whenSnapshot_thenZero() {
+        assertThat(new TbLatencyHistogram().snapshot().getCount()).isZero();
+    }
+
+}
@@ -400,4 +400,254 @@ public class TbSendToTcpNodeTest {
         node.onMsg(ctx, msg);
         verify(ctx).tellFailure(eq(msg), any(Exception.class));
     }
+
+    @Test
+    public void testAsyncModeTellsSuccessFromCallback() throws Exception {
+        TbSendToTcpNode.ClientFactory originalFactory = TbSendToTcpNode.clientFactory;
+        try {
+            TbTcpClient mockClient = mock(TbTcpClient.class);
+            when(mockClient.sendRequestAsync(org.mockito.ArgumentMatchers.anyString(),
+                    org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.any(),
+                    org.mockito.ArgumentMatchers.any()))
+                    .thenReturn(java.util.concurrent.CompletableFuture.completedFuture("{\"response\":\"async\"}"));
+            TbSendToTcpNode.clientFactory = (h, p, t, ssl, ct, rt) -> mockClient;
+
+            TbSendToTcpNodeConfiguration config = new TbSendToTcpNodeConfiguration().defaultConfiguration();
+            config.setHostKey("${tcpHost}");
+            config.setPortKey("${tcpPort}");
+            config.setAsync(true);
+            node.init(ctx, new org.thingsboard.rule.engine.api.TbNodeConfiguration(new ObjectMapper().valueToTree(config)));
+
+            metaData.putValue("tcpHost", "127.0.0.1");
+            metaData.putValue("tcpPort", "1234");
+            msg = TbMsg.newMsg().data("{\"payload\":\"async\"}").metaData(metaData)
+                    .originator(new DeviceId(UUID.randomUUID())).build();
+            node.onMsg(ctx, msg);
+            verify(ctx).tellSuccess(org.mockito.ArgumentMatchers.argThat(m -> m.getData().contains("async")));
+        } finally {
+            node.destroy();
+            TbSendToTcpNode.clientFactory = originalFactory;
+        }
+    }
+
+    @Test
+    public void testAsyncModeRejectsWhenMaxInFlightReached() throws Exception {
+        TbSendToTcpNode.ClientFactory originalFactory = TbSendToTcpNode.clientFactory;
+        try {
+            TbTcpClient mockClient = mock(TbTcpClient.class);
+            when(mockClient.sendRequestAsync(org.mockito.ArgumentMatchers.anyString(),
+                    org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.any(),
+                    org.mockito.ArgumentMatchers.any()))
+                    .thenReturn(new java.util.concurrent.CompletableFuture<>());
+            TbSendToTcpNode.clientFactory = (h, p, t, ssl, ct, rt) -> mockClient;
+
+            TbSendToTcpNodeConfiguration config = new TbSendToTcpNodeConfiguration().defaultConfiguration();
+            config.setHostKey("${tcpHost}");
+            config.setPortKey("${tcpPort}");
+            config.setAsync(true);
+            config.setMaxInFlightRequests(1);
+            node.init(ctx, new org.thingsboard.rule.engine.api.TbNodeConfiguration(new ObjectMapper().valueToTree(config)));
+
+            metaData.putValue("tcpHost", "127.0.0.1");
+            metaData.putValue("tcpPort", "1234");
+            TbMsg first = TbMsg.newMsg().data("{\"payload\":\"first\"}").metaData(metaData)
+                    .originator(new DeviceId(UUID.randomUUID())).build();
+            TbMsg second = TbMsg.newMsg().data("{\"payload\":\"second\"}").metaData(metaData)
+                    .originator(new DeviceId(UUID.randomUUID())).build();
+            node.onMsg(ctx, first);
+            node.onMsg(ctx, second);
+            verify(ctx).tellFailure(eq(second), any(java.util.concurrent.RejectedExecutionException.class));
+            verify(ctx, org.mockito.Mockito.never()).tellFailure(eq(first), any());
+        } finally {
+            node.destroy();
+            TbSendToTcpNode.clientFactory = originalFactory;
+        }
+    }
+
+    @Test
+    public void testAsyncModeFailsPendingRequestsOnDestroy() throws Exception {
+        TbSendToTcpNode.ClientFactory originalFactory = TbSendToTcpNode.clientFactory;
+        try {
+            TbTcpClient mockClient = mock(TbTcpClient.class);
+            java.util.concurrent.CompletableFuture<String> never = new java.util.concurrent.CompletableFuture<>();
+            when(mockClient.sendRequestAsync(org.mockito.ArgumentMatchers.anyString(),
+                    org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.any(),
+                    org.mockito.ArgumentMatchers.any()))
+                    .thenReturn(never);
+            TbSendToTcpNode.clientFactory = (h, p, t, ssl, ct, rt) -> mockClient;
+
+            TbSendToTcpNodeConfiguration config = new TbSendToTcpNodeConfiguration().defaultConfiguration();
+            config.setHostKey("${tcpHost}");
+            config.setPortKey("${tcpPort}");
+            config.setAsync(true);
+            node.init(ctx, new org.thingsboard.rule.engine.api.TbNodeConfiguration(new ObjectMapper().valueToTree(config)));
+
+            metaData.putValue("tcpHost", "127.0.0.1");
+            metaData.putValue("tcpPort", "1234");
+            msg = TbMsg.newMsg().data("{\"payload\":\"pending\"}").metaData(metaData)
+                    .originator(new DeviceId(UUID.randomUUID())).build();
+            node.onMsg(ctx, msg);
+            verify(ctx, org.mockito.Mockito.never()).tellFailure(eq(msg), any());
+
+            node.destroy();
+            org.assertj.core.api.Assertions.assertThat(never.isCompletedExceptionally()).isTrue();
+            verify(ctx).tellFailure(eq(msg), any());
+        } finally {
+            TbSendToTcpNode.clientFactory = originalFactory;
+        }
+    }
+
+    @Test
+    public void testTimingMetadataAndMetrics() throws Exception {
+        TbSendToTcpNode.ClientFactory originalFactory = TbSendToTcpNode.clientFactory;
+        try {
+            TbTcpClient mockClient = mock(TbTcpClient.class);
+            when(mockClient.sendRequest(org.mockito.ArgumentMatchers.anyString(),
+                    org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.any()))
+                    .thenReturn("{\"response\":\"ok\"}");
+            TbSendToTcpNode.clientFactory = (h, p, t, ssl, ct, rt) -> mockClient;
+
+            TbSendToTcpNodeConfiguration config = new TbSendToTcpNodeConfiguration().defaultConfiguration();
+            config.setHostKey("${tcpHost}");
+            config.setPortKey("${tcpPort}");
+            config.setTimingMetadata(true);
+            config.setJmxMetrics(false);
+            node.init(ctx, new org.thingsboard.rule.engine.api.TbNodeConfiguration(new ObjectMapper().valueToTree(config)));
+
+            metaData.putValue("tcpHost", "127.0.0.1");
+            metaData.putValue("tcpPort", "1234");
+            msg = TbMsg.newMsg().data("{\"payload\":\"ping\"}").metaData(metaData)
+                    .originator(new DeviceId(UUID.randomUUID())).build();
+            node.onMsg(ctx, msg);
+            TbMsg noPayload = TbMsg.newMsg().data("{}").metaData(metaData)
+                    .originator(new DeviceId(UUID.randomUUID())).build();
+            node.onMsg(ctx, noPayload);
+
+            verify(ctx).tellSuccess(org.mockito.ArgumentMatchers.argThat(m -> m.getMetaData().getValue("tcpTotalUs") != null
+                    && m.getMetaData().getValue("tcpBytesIn") != null));
+            org.assertj.core.api.Assertions.assertThat(node.metrics.getRequests()).isEqualTo(1);
+            org.assertj.core.api.Assertions.assertThat(node.metrics.getSuccesses()).isEqualTo(1);
+            org.assertj.core.api.Assertions.assertThat(node.metrics.getParseFailures()).isEqualTo(1);
+            org.assertj.core.api.Assertions.assertThat(node.metrics.getInFlight()).isZero();
+            org.assertj.core.api.Assertions.assertThat(node.metrics.getEndpoints())
+                    .extracting(TbTcpEndpointStatistics::getEndpoint).containsExactly("127.0.0.1:1234");
+        } finally {
+            node.destroy();
+            TbSendToTcpNode.clientFactory = originalFactory;
+        }
+    }
+
+    @Test
+    public void testUndecodableResponseCountedOnceAsParseFailure() throws Exception {
+        try (java.net.ServerSocket server = new java.net.ServerSocket(0, 1, java.net.InetAddress.getLoopbackAddress())) {
+            Thread responder = new Thread(() -> {
+                try (java.net.Socket socket = server.accept()) {
+                    socket.getInputStream().read(new byte[64]);
+                    // one byte where the decoder expects a 4 byte integer
+                    socket.getOutputStream().write(1);
+                } catch (java.io.IOException ignored) {
+                }
+            });
+            responder.setDaemon(true);
+            responder.start();
+
+            TbSendToTcpNodeConfiguration.DecoderFieldConfig field = new TbSendToTcpNodeConfiguration.DecoderFieldConfig();
+            field.setKey("value");
+            field.setOffset(0);
+            field.setType("INT32");
+            TbSendToTcpNodeConfiguration.ResponseDecoderConfig decoder = new TbSendToTcpNodeConfiguration.ResponseDecoderConfig();
+            decoder.setFormat("BINARY");
+            decoder.setFields(java.util.List.of(field));
+            TbSendToTcpNodeConfiguration config = new TbSendToTcpNodeConfiguration().defaultConfiguration();
+            config.setHostKey("${tcpHost}");
+            config.setPortKey("${tcpPort}");
+            config.setJmxMetrics(false);
+            config.setResponseDecoder(decoder);
+            node.init(ctx, new org.thingsboard.rule.engine.api.TbNodeConfiguration(new ObjectMapper().valueToTree(config)));
+
+            metaData.putValue("tcpHost", "127.0.0.1");
+            metaData.putValue("tcpPort", String.valueOf(server.getLocalPort()));
+            msg = TbMsg.newMsg().data("{\"payload\":\"read\"}").metaData(metaData)
+                    .originator(new DeviceId(UUID.randomUUID())).build();
+            node.onMsg(ctx, msg);
+
+            verify(ctx).tellFailure(eq(msg), any(TbTcpResponseDecoder.DecodeException.class));
+            org.assertj.core.api.Assertions.assertThat(node.metrics.getRequests()).isEqualTo(1);
+            org.assertj.core.api.Assertions.assertThat(node.metrics.getParseFailures()).isEqualTo(1);
+        } finally {
+            node.destroy();
+        }
+    }
+
+    @Test
+    public void testCircuitOpensAfterConsecutiveFailures() throws Exception {
+        TbSendToTcpNode.ClientFactory originalFactory = TbSendToTcpNode.clientFactory;
+        try {
+            TbTcpClient mockClient = mock(TbTcpClient.class);
+            when(mockClient.sendRequest(org.mockito.ArgumentMatchers.anyString(),
+                    org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.any()))
+                    .thenThrow(new java.net.ConnectException("Connection refused"));
+            TbSendToTcpNode.clientFactory = (h, p, t, ssl, ct, rt) -> mockClient;
+
+            TbSendToTcpNodeConfiguration config = new TbSendToTcpNodeConfiguration().defaultConfiguration();
+            config.setHostKey("${tcpHost}");
+            config.setPortKey("${tcpPort}");
+            config.setCircuitBreaker(true);
+            config.setCircuitFailureThreshold(2);
+            config.setCircuitOpenTimeout(60000);
+            node.init(ctx, new org.thingsboard.rule.engine.api.TbNodeConfiguration(new ObjectMapper().valueToTree(config)));
+
+            metaData.putValue("tcpHost", "127.0.0.1");
+            metaData.putValue("tcpPort", "1234");
+            for (int i = 0; i < 3; i++) {
+                node.onMsg(ctx, TbMsg.newMsg().data("{\"payload\":\"ping\"}").metaData(metaData)
+                        .originator(new DeviceId(UUID.randomUUID())).build());
+            }
+
+            verify(ctx, org.mockito.Mockito.times(2)).tellFailure(any(), any());
+            verify(ctx).tellNext(any(), eq(TbSendToTcpNode.CIRCUIT_OPEN));
+            verify(mockClient, org.mockito.Mockito.times(2)).sendRequest(org.mockito.ArgumentMatchers.anyString(),
+                    org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.any());
+        } finally {
+            node.destroy();
+            TbSendToTcpNode.clientFactory = originalFactory;
+        }
+    }
+
+    @Test
+    public void testUndecodableResponseResetsConsecutiveFailures() throws Exception {
+        TbSendToTcpNode.ClientFactory originalFactory = TbSendToTcpNode.clientFactory;
+        try {
+            TbTcpClient mockClient = mock(TbTcpClient.class);
+            when(mockClient.sendRequest(org.mockito.ArgumentMatchers.anyString(),
+                    org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.any()))
+                    .thenThrow(new java.net.ConnectException("Connection refused"),
+                            new TbTcpResponseDecoder.DecodeException("Response is too short"),
+                            new java.net.ConnectException("Connection refused"))
+                    .thenReturn("{\"response\":\"ok\"}");
+            TbSendToTcpNode.clientFactory = (h, p, t, ssl, ct, rt) -> mockClient;
+
+            TbSendToTcpNodeConfiguration config = new TbSendToTcpNodeConfiguration().defaultConfiguration();
+            config.setHostKey("${tcpHost}");
+            config.setPortKey("${tcpPort}");
+            config.setCircuitBreaker(true);
+            config.setCircuitFailureThreshold(2);
+            config.setCircuitOpenTimeout(60000);
+            node.init(ctx, new org.thingsboard.rule.engine.api.TbNodeConfiguration(new ObjectMapper().valueToTree(config)));
+
+            metaData.putValue("tcpHost", "127.0.0.1");
+            metaData.putValue("tcpPort", "1234");
+            for (int i = 0; i < 4; i++) {
+                node.onMsg(ctx, TbMsg.newMsg().data("{\"payload\":\"ping\"}").metaData(metaData)
+                        .originator(new DeviceId(UUID.randomUUID())).build());
+            }
+
+            // the endpoint answered the second request, the failures around it are not consecutive
+            verify(ctx, org.mockito.Mockito.never()).tellNext(any(), eq(TbSendToTcpNode.CIRCUIT_OPEN));
+            verify(ctx).tellSuccess(any());
+        } finally {
+            node.destroy();
+            TbSendToTcpNode.clientFactory = originalFactory;
+        }
+    }
 }
@@ -0,0 +1,69 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TbTcpBufferPoolTest {
+
+    private final TbTcpBufferPool pool = new TbTcpBufferPool(16, 4, 64);
+
+    @Test
+    void givenGrownBuffer_whenReleased_thenReusedForNextGrow() {
+        ByteBuffer buffer = pool.acquire();
+        buffer.put((byte) 1);
+
+        ByteBuffer grown = pool.grow(buffer, 0);
+        assertThat(grown.capacity()).isEqualTo(32);
+        assertThat(grown.isDirect()).isTrue();
+        assertThat(grown.position()).isEqualTo(1);
+        assertThat(pool.acquire()).isSameAs(buffer);
+
+        pool.release(grown);
+        assertThat(pool.grow(pool.acquire(), 0)).isSameAs(grown);
+    }
+
+    @Test
+    void givenMinCapacity_whenGrow_thenRoundedUpToSizeClass() {
+        assertThat(pool.grow(pool.acquire(), 40).capacity()).isEqualTo(64);
+    }
+
+    @Test
+    void givenCapacityOverMaxDirectSize_whenGrow_thenHeapBufferNotPooled() {
+        ByteBuffer grown = pool.grow(pool.acquire(), 100);
+        assertThat(grown.isDirect()).isFalse();
+        assertThat(grown.capacity()).isEqualTo(100);
+
+        pool.release(grown);
+        assertThat(pool.size()).isEqualTo(1);
+    }
+
+    @Test
+    void givenFullSizeClass_whenReleased_thenDropped() {
+        // size class of 64 bytes keeps a single buffer
+        ByteBuffer first = pool.grow(pool.acquire(), 64);
+        ByteBuffer second = pool.grow(pool.acquire(), 64);
+        pool.release(first);
+        pool.release(second);
+
+        assertThat(pool.size()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TbTcpCircuitBreakerTest {
+
+    private static final String ENDPOINT = "127.0.0.1:1234";
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private final TbTcpCircuitBreaker breaker = new TbTcpCircuitBreaker(3, 1000, 4000, 100, 60000, now::get);
+
+    @Test
+    void givenConsecutiveFailures_whenThresholdReached_thenCircuitOpens() {
+        fail(2);
+        breaker.onSuccess(ENDPOINT, acquire());
+        fail(2);
+        assertThat(breaker.state(ENDPOINT)).isEqualTo(TbTcpCircuitBreaker.State.CLOSED);
+
+        fail(1);
+
+        assertThat(breaker.state(ENDPOINT)).isEqualTo(TbTcpCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire(ENDPOINT)).isEqualTo(TbTcpCircuitBreaker.REJECTED);
+        assertThat(breaker.getOpenCircuits()).isEqualTo(1);
+    }
+
+    @Test
+    void givenOpenCircuit_whenBackoffElapsed_thenSingleProbeAllowed() {
+        fail(3);
+        now.addAndGet(1000);
+
+        long probe = acquire();
+        assertThat(breaker.tryAcquire(ENDPOINT)).isEqualTo(TbTcpCircuitBreaker.REJECTED);
+
+        breaker.onSuccess(ENDPOINT, probe);
+        assertThat(breaker.state(ENDPOINT)).isEqualTo(TbTcpCircuitBreaker.State.CLOSED);
+        acquire();
+    }
+
+    @Test
+    void givenFailedProbe_whenReopened_thenBackoffDoubles() {
+        fail(3);
+        now.addAndGet(1000);
+        breaker.onFailure(ENDPOINT, acquire());
+
+        // jittered between half and the full doubled backoff
+        now.addAndGet(999);
+        assertThat(breaker.tryAcquire(ENDPOINT)).isEqualTo(TbTcpCircuitBreaker.REJECTED);
+        now.addAndGet(1001);
+        acquire();
+    }
+
+    @Test
+    void givenReleasedProbe_whenNotSent_thenNextRequestProbes() {
+        fail(3);
+        now.addAndGet(1000);
+
+        breaker.release(ENDPOINT, acquire());
+
+        acquire();
+        assertThat(breaker.tryAcquire("other:1")).isNotEqualTo(TbTcpCircuitBreaker.REJECTED);
+    }
+
+    @Test
+    void givenProbeInFlight_whenEarlierRequestsComplete_thenProbeStillSole() {
+        long late = acquire();
+        long lateFailure = acquire();
+        long lateRelease = acquire();
+        fail(3);
+        now.addAndGet(1000);
+        long probe = acquire();
+
+        breaker.release(ENDPOINT, lateRelease);
+        breaker.onSuccess(ENDPOINT, late);
+        breaker.onFailure(ENDPOINT, lateFailure);
+
+        assertThat(breaker.state(ENDPOINT)).isEqualTo(TbTcpCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire(ENDPOINT)).isEqualTo(TbTcpCircuitBreaker.REJECTED);
+        breaker.onSuccess(ENDPOINT, probe);
+        assertThat(breaker.state(ENDPOINT)).isEqualTo(TbTcpCircuitBreaker.State.CLOSED);
+    }
+
+    private long acquire() {
+        long permit = breaker.tryAcquire(ENDPOINT);
+        assertThat(permit).isNotEqualTo(TbTcpCircuitBreaker.REJECTED);
+        return permit;
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.onFailure(ENDPOINT, acquire());
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.msg.TbMsgDataType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TbTcpCodecTest {
+
+    @Test
+    void givenData_whenExtractPayload_thenOnlyTopLevelFieldIsUsed() throws IOException {
+        assertThat(TbTcpCodec.extractPayload("{\"nested\":{\"payload\":1},\"payload\":\"a\\\"b\"}")).isEqualTo("a\"b");
+        assertThat(TbTcpCodec.extractPayload("{\"payload\":{\"k\":[1,2]}}")).isEqualTo("{\"k\":[1,2]}");
+        assertThat(TbTcpCodec.extractPayload("[\"test\"]")).isNull();
+        assertThat(TbTcpCodec.extractPayload("")).isNull();
+        assertThatThrownBy(() -> TbTcpCodec.extractPayload("{\"payload\":")).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void givenTextWithQuotes_whenWrapResponse_thenEscaped() {
+        String data = TbTcpCodec.wrapResponse("say \"hi\"\n".getBytes(StandardCharsets.UTF_8), TbMsgDataType.TEXT);
+        assertThat(data).isEqualTo("{\"response\":\"say \\\"hi\\\"\\n\"}");
+    }
+
+    @Test
+    void givenJsonResponse_whenWrapResponse_thenEmbeddedAsValue() {
+        byte[] json = "{\"key\":\"value\"}".getBytes(StandardCharsets.UTF_8);
+        assertThat(TbTcpCodec.wrapResponse(json, TbMsgDataType.JSON)).isEqualTo("{\"response\":{\"key\":\"value\"}}");
+        byte[] invalid = "{bad".getBytes(StandardCharsets.UTF_8);
+        assertThat(TbTcpCodec.wrapResponse(invalid, TbMsgDataType.JSON)).isEqualTo("{\"response\":\"{bad\"}");
+    }
+
+    @Test
+    void givenDirectBuffer_whenWrapResponse_thenSameAsArray() {
+        for (String response : new String[]{"{\"key\":\"value\"}", "{bad", "say \"hi\"\n"}) {
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 2);
+            buffer.put((byte) 0).put(bytes).put((byte) 0).flip();
+            ByteBuffer slice = buffer.slice(1, bytes.length);
+            for (TbMsgDataType type : TbMsgDataType.values()) {
+                assertThat(TbTcpCodec.wrapResponse(slice, type)).isEqualTo(TbTcpCodec.wrapResponse(bytes, type));
+            }
+            assertThat(slice.remaining()).isEqualTo(bytes.length);
+        }
+    }
+
+    @Test
+    void givenBinaryResponse_whenWrapResponse_thenBase64() {
+        byte[] bytes = Base64.getDecoder().decode("eqcADcABwQAHAQBeWwD/AgA=");
+        assertThat(TbTcpCodec.wrapResponse(bytes, TbMsgDataType.BINARY))
+                .isEqualTo("{\"response\":\"eqcADcABwQAHAQBeWwD/AgA=\"}");
+    }
+
+}
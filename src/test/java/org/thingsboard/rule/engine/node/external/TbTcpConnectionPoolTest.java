@@ -0,0 +1,200 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TbTcpConnectionPoolTest {
+
+    static final String KEY = "127.0.0.1:1";
+
+    ServerSocket serverSocket;
+    AtomicInteger accepted = new AtomicInteger();
+    volatile boolean greeting;
+    volatile boolean closeAfterReply;
+    volatile boolean dropSecondRequest;
+    AtomicInteger received = new AtomicInteger();
+    TbTcpConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "tcp-pool-test-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (pool != null) {
+            pool.close();
+        }
+        serverSocket.close();
+    }
+
+    @Test
+    void givenMaxConnectionsBorrowed_whenBorrow_thenPoolExhaustedUntilReleased() throws IOException {
+        pool = new TbTcpConnectionPool("tcp-pool-test", 1, 60000);
+        TbTcpConnectionPool.Connection first = pool.borrow(KEY, this::open, 50);
+
+        assertThatThrownBy(() -> pool.borrow(KEY, this::open, 50))
+                .isInstanceOf(TbTcpConnectionPool.PoolExhaustedException.class);
+
+        pool.release(KEY, first, true);
+        TbTcpConnectionPool.Connection second = pool.borrow(KEY, this::open, 50);
+        assertThat(second.isReused()).isTrue();
+        assertThat(second.getSocket()).isSameAs(first.getSocket());
+        assertThat(pool.getHitCount()).isEqualTo(1);
+        assertThat(pool.getMissCount()).isEqualTo(1);
+        pool.release(KEY, second, false);
+    }
+
+    @Test
+    void givenIdleConnection_whenEvicted_thenEndpointDropped() throws Exception {
+        pool = new TbTcpConnectionPool("tcp-pool-test", 2, 50);
+        TbTcpConnectionPool.Connection connection = pool.borrow(KEY, this::open, 50);
+
+        // Borrowed connections keep the endpoint
+        pool.evictIdle();
+        assertThat(pool.getEndpointCount()).isEqualTo(1);
+
+        pool.release(KEY, connection, true);
+        Thread.sleep(100);
+        pool.evictIdle();
+        assertThat(connection.getSocket().isClosed()).isTrue();
+        assertThat(pool.getEvictedCount()).isEqualTo(1);
+        assertThat(pool.getIdleConnections()).isZero();
+        assertThat(pool.getEndpointCount()).isZero();
+
+        TbTcpConnectionPool.Connection fresh = pool.borrow(KEY, this::open, 50);
+        assertThat(fresh.isReused()).isFalse();
+        pool.release(KEY, fresh, false);
+    }
+
+    @Test
+    void givenUnsolicitedBytes_whenBorrow_thenIdleConnectionDiscarded() throws Exception {
+        greeting = true;
+        pool = new TbTcpConnectionPool("tcp-pool-test", 2, 60000);
+        TbTcpConnectionPool.Connection first = pool.borrow(KEY, this::open, 50);
+        pool.release(KEY, first, true);
+        Thread.sleep(100);
+
+        TbTcpConnectionPool.Connection second = pool.borrow(KEY, this::open, 50);
+        assertThat(second.isReused()).isFalse();
+        assertThat(first.getSocket().isClosed()).isTrue();
+        assertThat(pool.getMissCount()).isEqualTo(2);
+        pool.release(KEY, second, false);
+    }
+
+    @Test
+    void givenPeerClosedPooledConnectionAndRetryEnabled_whenSendRequest_thenRetriedOnFreshSocket() throws IOException {
+        closeAfterReply = true;
+        pool = new TbTcpConnectionPool("tcp-pool-test", 2, 60000);
+        var framingConfig = new TbSendToTcpNodeConfiguration.FramingConfig();
+        framingConfig.setType("DELIMITER");
+        framingConfig.setDelimiter("\\n");
+
+        for (String payload : new String[]{"first\n", "second\n"}) {
+            TbTcpClient client = new TbTcpClient("127.0.0.1", serverSocket.getLocalPort(), false, null, 1000, 1000);
+            client.setFraming(TbTcpFraming.fromConfig(framingConfig));
+            client.setConnectionPool(pool, KEY);
+            client.setRetryStaleConnection(true);
+            byte[] response = client.sendRequest(payload.getBytes(StandardCharsets.UTF_8));
+            assertThat(new String(response, StandardCharsets.UTF_8)).isEqualTo(payload);
+        }
+        assertThat(accepted.get()).isEqualTo(2);
+    }
+
+    @Test
+    void givenRequestWrittenThenPeerClosed_whenSendRequest_thenNotResent() throws IOException {
+        dropSecondRequest = true;
+        pool = new TbTcpConnectionPool("tcp-pool-test", 2, 60000);
+        var framingConfig = new TbSendToTcpNodeConfiguration.FramingConfig();
+        framingConfig.setType("DELIMITER");
+        framingConfig.setDelimiter("\\n");
+
+        TbTcpClient client = new TbTcpClient("127.0.0.1", serverSocket.getLocalPort(), false, null, 1000, 1000);
+        client.setFraming(TbTcpFraming.fromConfig(framingConfig));
+        client.setConnectionPool(pool, KEY);
+        client.sendRequest("first\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> client.sendRequest("second\n".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IOException.class);
+        assertThat(accepted.get()).isEqualTo(1);
+        assertThat(received.get()).isEqualTo(2);
+    }
+
+    private TbTcpConnectionPool.Connection open() throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort()), 1000);
+        return new TbTcpConnectionPool.Connection(socket, socket);
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                accepted.incrementAndGet();
+                Thread worker = new Thread(() -> serve(socket), "tcp-pool-test-worker");
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        byte[] buffer = new byte[1024];
+        try (socket) {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            if (greeting) {
+                out.write('!');
+                out.flush();
+            }
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                if (received.incrementAndGet() == 2 && dropSecondRequest) {
+                    return;
+                }
+                out.write(buffer, 0, n);
+                out.flush();
+                if (closeAfterReply) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+}
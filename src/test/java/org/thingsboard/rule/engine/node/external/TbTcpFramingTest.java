@@ -0,0 +1,149 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TbTcpFramingTest {
+
+    @Test
+    void givenNoConfig_whenCompile_thenNone() {
+        TbTcpFraming framing = TbTcpFraming.fromConfig(null);
+        assertThat(framing.isNone()).isTrue();
+    }
+
+    @Test
+    void givenFixedLength_whenFrameLength_thenWaitsForAllBytes() throws IOException {
+        var config = new TbSendToTcpNodeConfiguration.FramingConfig();
+        config.setType("FIXED_LENGTH");
+        config.setFixedLength(4);
+        TbTcpFraming framing = TbTcpFraming.fromConfig(config);
+
+        byte[] buf = {1, 2, 3, 4, 5};
+        assertThat(framing.frameLength(buf, 3)).isEqualTo(-1);
+        assertThat(framing.frameLength(buf, 5)).isEqualTo(4);
+        assertThat(framing.extract(buf, 4)).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    void givenLengthPrefixed_whenBigEndian_thenFrameIncludesHeader() throws IOException {
+        var config = new TbSendToTcpNodeConfiguration.FramingConfig();
+        config.setType("LENGTH_PREFIXED");
+        config.setLengthFieldSize(2);
+        config.setByteOrder("BIG_ENDIAN");
+        TbTcpFraming framing = TbTcpFraming.fromConfig(config);
+
+        byte[] buf = {0x00, 0x03, 'a', 'b', 'c'};
+        assertThat(framing.frameLength(buf, 1)).isEqualTo(-1);
+        assertThat(framing.frameLength(buf, 4)).isEqualTo(-1);
+        assertThat(framing.frameLength(buf, 5)).isEqualTo(5);
+    }
+
+    @Test
+    void givenLengthPrefixed_whenLittleEndianAndStrip_thenPayloadOnly() throws IOException {
+        var config = new TbSendToTcpNodeConfiguration.FramingConfig();
+        config.setType("LENGTH_PREFIXED");
+        config.setLengthFieldSize(4);
+        config.setByteOrder("LITTLE_ENDIAN");
+        config.setStripFraming(true);
+        TbTcpFraming framing = TbTcpFraming.fromConfig(config);
+
+        byte[] buf = {0x02, 0x00, 0x00, 0x00, 'o', 'k'};
+        assertThat(framing.frameLength(buf, buf.length)).isEqualTo(6);
+        assertThat(new String(framing.extract(buf, 6), StandardCharsets.UTF_8)).isEqualTo("ok");
+    }
+
+    @Test
+    void givenDelimiter_whenHexOrEscaped_thenParsed() throws IOException {
+        var config = new TbSendToTcpNodeConfiguration.FramingConfig();
+        config.setType("DELIMITER");
+        config.setDelimiter("\\r\\n");
+        config.setStripFraming(true);
+        TbTcpFraming framing = TbTcpFraming.fromConfig(config);
+
+        byte[] buf = "OK\r\nrest".getBytes(StandardCharsets.UTF_8);
+        assertThat(framing.frameLength(buf, 3)).isEqualTo(-1);
+        assertThat(framing.frameLength(buf, buf.length)).isEqualTo(4);
+        assertThat(new String(framing.extract(buf, 4), StandardCharsets.UTF_8)).isEqualTo("OK");
+
+        assertThat(TbTcpFraming.parseDelimiter("0x03")).containsExactly(0x03);
+        assertThat(TbTcpFraming.parseDelimiter("\\x03")).containsExactly(0x03);
+    }
+
+    @Test
+    void givenDelimiterSplitAcrossReads_whenResumeScan_thenFound() throws IOException {
+        var config = new TbSendToTcpNodeConfiguration.FramingConfig();
+        config.setType("DELIMITER");
+        config.setDelimiter("\\r\\n");
+        TbTcpFraming framing = TbTcpFraming.fromConfig(config);
+
+        byte[] buf = "OK\r\n".getBytes(StandardCharsets.UTF_8);
+        assertThat(framing.frameLength(buf, 3, 0)).isEqualTo(-1);
+        int scanFrom = framing.resumeScanAt(3);
+        assertThat(scanFrom).isEqualTo(2);
+        assertThat(framing.frameLength(buf, 4, scanFrom)).isEqualTo(4);
+        ByteBuffer direct = ByteBuffer.allocateDirect(8).put(buf);
+        assertThat(framing.frameLength(direct, 4, scanFrom)).isEqualTo(4);
+        assertThat(framing.resumeScanAt(0)).isZero();
+    }
+
+    @Test
+    void givenDirectBuffer_whenFrame_thenViewWithoutDelimiter() throws IOException {
+        var config = new TbSendToTcpNodeConfiguration.FramingConfig();
+        config.setType("DELIMITER");
+        config.setDelimiter("\\n");
+        config.setStripFraming(true);
+        TbTcpFraming framing = TbTcpFraming.fromConfig(config);
+
+        ByteBuffer buf = ByteBuffer.allocateDirect(16);
+        buf.put("OK\nrest".getBytes(StandardCharsets.UTF_8));
+        assertThat(framing.frameLength(buf, 2)).isEqualTo(-1);
+        assertThat(framing.frameLength(buf, buf.position())).isEqualTo(3);
+        ByteBuffer frame = framing.frame(buf, 3);
+        assertThat(frame.remaining()).isEqualTo(2);
+        assertThat(frame.get(0)).isEqualTo((byte) 'O');
+        assertThat(buf.position()).isEqualTo(7);
+    }
+
+    @Test
+    void givenMaxFrameBytes_whenExceeded_thenThrows() {
+        var config = new TbSendToTcpNodeConfiguration.FramingConfig();
+        config.setType("DELIMITER");
+        config.setDelimiter("0x03");
+        config.setMaxFrameBytes(2);
+        TbTcpFraming framing = TbTcpFraming.fromConfig(config);
+
+        assertThatThrownBy(() -> framing.frameLength(new byte[]{1, 2, 3}, 3))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("max frame size");
+    }
+
+    @Test
+    void givenInvalidLengthFieldSize_whenCompile_thenThrows() {
+        var config = new TbSendToTcpNodeConfiguration.FramingConfig();
+        config.setType("LENGTH_PREFIXED");
+        config.setLengthFieldSize(3);
+        assertThatThrownBy(() -> TbTcpFraming.fromConfig(config)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
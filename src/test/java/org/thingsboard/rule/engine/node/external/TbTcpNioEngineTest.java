@@ -0,0 +1,209 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TbTcpNioEngineTest {
+
+    ServerSocket serverSocket;
+    AtomicInteger accepted = new AtomicInteger();
+    volatile boolean silent;
+    volatile int flood;
+    volatile boolean dropSecondRequest;
+    AtomicInteger received = new AtomicInteger();
+    TbTcpNioEngine engine;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serverSocket = new ServerSocket(0, 512, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "tcp-echo-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        engine = new TbTcpNioEngine("tcp-nio-test", 2, 4, 60000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        engine.close();
+        serverSocket.close();
+    }
+
+    @Test
+    void givenDelimiterFraming_whenSendSequentially_thenConnectionReused() throws Exception {
+        TbTcpTrace first = new TbTcpTrace();
+        assertThat(send("hello\n", first).get(5, TimeUnit.SECONDS)).isEqualTo("hello");
+        TbTcpTrace second = new TbTcpTrace();
+        assertThat(send("again\n", second).get(5, TimeUnit.SECONDS)).isEqualTo("again");
+
+        assertThat(accepted.get()).isEqualTo(1);
+        assertThat(first.connectNanos).isPositive();
+        assertThat(second.connectNanos).isZero();
+        assertThat(second.bytesOut).isEqualTo(6);
+        assertThat(second.bytesIn).isEqualTo(6);
+    }
+
+    @Test
+    void givenManyConcurrentRequests_whenSend_thenEachGetsItsResponse() throws Exception {
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            responses.add(send("message-" + i + "\n", null));
+        }
+        for (int i = 0; i < responses.size(); i++) {
+            assertThat(responses.get(i).get(10, TimeUnit.SECONDS)).isEqualTo("message-" + i);
+        }
+    }
+
+    @Test
+    void givenSilentServer_whenSend_thenReadTimeout() {
+        silent = true;
+        assertThatThrownBy(() -> send("hello\n", null).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(SocketTimeoutException.class);
+    }
+
+    @Test
+    void givenNewConnection_whenSend_thenAddressResolvedOnResolverThread() throws Exception {
+        AtomicReference<String> resolvedOn = new AtomicReference<>();
+        InetSocketAddress address = new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+
+        CompletableFuture<String> response = engine.send("echo", () -> {
+            resolvedOn.set(Thread.currentThread().getName());
+            return address;
+        }, null, "hello\n".getBytes(StandardCharsets.UTF_8), delimiterFraming(), 1000, 300, false, null,
+                TbTcpNioEngineTest::toString);
+
+        assertThat(response.get(5, TimeUnit.SECONDS)).isEqualTo("hello");
+        assertThat(resolvedOn.get()).isNotNull().isNotEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    void givenNoFramingAndChattyServer_whenSend_thenFailsAtMaxResponseSize() {
+        flood = TbTcpNioEngine.MAX_RESPONSE_BYTES + 1024 * 1024;
+        InetSocketAddress address = new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+
+        CompletableFuture<String> response = engine.send("echo", () -> address, null,
+                "hello".getBytes(StandardCharsets.UTF_8), TbTcpFraming.NONE, 1000, 1000, false, null,
+                TbTcpNioEngineTest::toString);
+
+        assertThatThrownBy(() -> response.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IOException.class)
+                .hasMessageContaining("exceeds max size");
+    }
+
+    @Test
+    void givenRequestWrittenThenPeerClosed_whenSend_thenNotResent() throws Exception {
+        dropSecondRequest = true;
+        assertThat(send("hello\n", null).get(5, TimeUnit.SECONDS)).isEqualTo("hello");
+
+        assertThatThrownBy(() -> send("again\n", null).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IOException.class);
+        assertThat(accepted.get()).isEqualTo(1);
+        assertThat(received.get()).isEqualTo(2);
+    }
+
+    @Test
+    void givenClosedEngine_whenSend_thenFails() {
+        engine.close();
+        assertThatThrownBy(() -> send("hello\n", null).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IOException.class);
+    }
+
+    private CompletableFuture<String> send(String payload, TbTcpTrace trace) {
+        InetSocketAddress address = new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+        return engine.send("echo", () -> address, null, payload.getBytes(StandardCharsets.UTF_8),
+                delimiterFraming(), 1000, 300, false, trace, TbTcpNioEngineTest::toString);
+    }
+
+    private static TbTcpFraming delimiterFraming() {
+        var config = new TbSendToTcpNodeConfiguration.FramingConfig();
+        config.setType("DELIMITER");
+        config.setDelimiter("\\n");
+        config.setStripFraming(true);
+        return TbTcpFraming.fromConfig(config);
+    }
+
+    private static String toString(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                accepted.incrementAndGet();
+                Thread worker = new Thread(() -> echo(socket), "tcp-echo-worker");
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private void echo(Socket socket) {
+        byte[] buffer = new byte[1024];
+        try (socket) {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                if (received.incrementAndGet() == 2 && dropSecondRequest) {
+                    return;
+                }
+                if (flood > 0) {
+                    byte[] chunk = new byte[64 * 1024];
+                    for (int sent = 0; sent < flood; sent += chunk.length) {
+                        out.write(chunk);
+                    }
+                    out.flush();
+                } else if (!silent) {
+                    out.write(buffer, 0, n);
+                    out.flush();
+                }
+            }
+        } catch (IOException ignored) {
+            // client went away
+        }
+    }
+
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TbTcpPipelineTest {
+
+    static final String KEY = "127.0.0.1:1";
+
+    ServerSocket serverSocket;
+    AtomicInteger accepted = new AtomicInteger();
+    volatile boolean silent;
+    volatile boolean reversePairs;
+    TbTcpPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "tcp-pipeline-test-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+        serverSocket.close();
+    }
+
+    @Test
+    void givenFifoMatching_whenSendBackToBack_thenRepliesInRequestOrder() throws Exception {
+        pipeline = newPipeline(0, 1000, 60000);
+
+        CompletableFuture<byte[]> first = pipeline.send(KEY, this::open, bytes("one\n"));
+        CompletableFuture<byte[]> second = pipeline.send(KEY, this::open, bytes("two\n"));
+
+        assertThat(string(first.get(1, TimeUnit.SECONDS))).isEqualTo("one\n");
+        assertThat(string(second.get(1, TimeUnit.SECONDS))).isEqualTo("two\n");
+        assertThat(accepted.get()).isEqualTo(1);
+    }
+
+    @Test
+    void givenCorrelationField_whenRepliesOutOfOrder_thenMatchedById() throws Exception {
+        reversePairs = true;
+        pipeline = newPipeline(2, 1000, 60000);
+
+        CompletableFuture<byte[]> first = pipeline.send(KEY, this::open, bytes("01a\n"));
+        CompletableFuture<byte[]> second = pipeline.send(KEY, this::open, bytes("02b\n"));
+
+        assertThat(string(first.get(1, TimeUnit.SECONDS))).isEqualTo("01a\n");
+        assertThat(string(second.get(1, TimeUnit.SECONDS))).isEqualTo("02b\n");
+    }
+
+    @Test
+    void givenNoReply_whenTimeout_thenFailedAndNextRequestReconnects() throws Exception {
+        silent = true;
+        pipeline = newPipeline(0, 200, 60000);
+
+        CompletableFuture<byte[]> lost = pipeline.send(KEY, this::open, bytes("lost\n"));
+        assertThatThrownBy(() -> lost.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(SocketTimeoutException.class);
+
+        silent = false;
+        CompletableFuture<byte[]> next = pipeline.send(KEY, this::open, bytes("next\n"));
+        assertThat(string(next.get(1, TimeUnit.SECONDS))).isEqualTo("next\n");
+        assertThat(accepted.get()).isEqualTo(2);
+    }
+
+    @Test
+    void givenIdleConnection_whenEvicted_thenEndpointDropped() throws Exception {
+        pipeline = newPipeline(0, 1000, 50);
+        assertThat(string(pipeline.send(KEY, this::open, bytes("one\n")).get(1, TimeUnit.SECONDS))).isEqualTo("one\n");
+        assertThat(pipeline.getEndpointCount()).isEqualTo(1);
+
+        Thread.sleep(100);
+        pipeline.evictIdle();
+        assertThat(pipeline.getEndpointCount()).isZero();
+
+        assertThat(string(pipeline.send(KEY, this::open, bytes("two\n")).get(1, TimeUnit.SECONDS))).isEqualTo("two\n");
+        assertThat(accepted.get()).isEqualTo(2);
+    }
+
+    @Test
+    void givenConnectFailure_whenSend_thenFailedWithoutBlockingCaller() {
+        pipeline = newPipeline(0, 1000, 60000);
+
+        CompletableFuture<byte[]> future = pipeline.send(KEY, () -> {
+            throw new IOException("Connection refused");
+        }, bytes("one\n"));
+
+        assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    void givenMaxConnectionsOpen_whenSendToNewEndpoint_thenRejectedUntilConnectionClosed() throws Exception {
+        pipeline = newPipeline(0, 1000, 50, 1);
+        assertThat(string(pipeline.send(KEY, this::open, bytes("one\n")).get(1, TimeUnit.SECONDS))).isEqualTo("one\n");
+
+        CompletableFuture<byte[]> rejected = pipeline.send("127.0.0.1:2", this::open, bytes("two\n"));
+        assertThatThrownBy(() -> rejected.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+
+        Thread.sleep(100);
+        pipeline.evictIdle();
+        assertThat(pipeline.getOpenConnectionCount()).isZero();
+        CompletableFuture<byte[]> next = pipeline.send("127.0.0.1:2", this::open, bytes("two\n"));
+        assertThat(string(next.get(1, TimeUnit.SECONDS))).isEqualTo("two\n");
+        assertThat(accepted.get()).isEqualTo(2);
+    }
+
+    private TbTcpPipeline newPipeline(int correlationLength, long requestTimeoutMs, long idleTimeoutMs) {
+        return newPipeline(correlationLength, requestTimeoutMs, idleTimeoutMs, 16);
+    }
+
+    private TbTcpPipeline newPipeline(int correlationLength, long requestTimeoutMs, long idleTimeoutMs,
+            int maxConnections) {
+        var framingConfig = new TbSendToTcpNodeConfiguration.FramingConfig();
+        framingConfig.setType("DELIMITER");
+        framingConfig.setDelimiter("\\n");
+        return new TbTcpPipeline("tcp-pipeline-test", TbTcpFraming.fromConfig(framingConfig), 1, 16, 0,
+                correlationLength, requestTimeoutMs, idleTimeoutMs, maxConnections);
+    }
+
+    private TbTcpConnectionPool.Connection open() throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort()), 1000);
+        return new TbTcpConnectionPool.Connection(socket, socket);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] b) {
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                accepted.incrementAndGet();
+                Thread worker = new Thread(() -> serve(socket), "tcp-pipeline-test-worker");
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        List<byte[]> held = new ArrayList<>();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (socket) {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                line.write(b);
+                if (b != '\n') {
+                    continue;
+                }
+                byte[] frame = line.toByteArray();
+                line.reset();
+                if (silent) {
+                    continue;
+                }
+                if (reversePairs) {
+                    held.add(0, frame);
+                    if (held.size() < 2) {
+                        continue;
+                    }
+                } else {
+                    held.add(frame);
+                }
+                for (byte[] reply : held) {
+                    out.write(reply);
+                }
+                held.clear();
+                out.flush();
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.external;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TbTcpResponseDecoderTest {
+
+    @Test
+    void givenNoConfig_whenCompile_thenDisabled() {
+        assertThat(TbTcpResponseDecoder.fromConfig(null)).isNull();
+    }
+
+    @Test
+    void givenBinaryFields_whenDecode_thenTelemetry() {
+        var id = field("id", 0, "HEX", null);
+        id.setLength(2);
+        var counter = field("counter", 9, "UINT32", null);
+        counter.setByteOrder("LITTLE_ENDIAN");
+        var alarm = field("alarm", 13, "BOOLEAN", null);
+        alarm.setBit(2);
+        var serial = field("serial", 14, "STRING", null);
+        serial.setLength(4);
+        TbTcpResponseDecoder decoder = decoder("BINARY", null, id, field("temperature", 2, "INT16", 0.1),
+                field("humidity", 4, "UINT8", null), field("pressure", 5, "FLOAT32", null), counter, alarm, serial);
+
+        ByteBuffer response = ByteBuffer.allocate(18);
+        response.put((byte) 0xAB).put((byte) 0x01).putShort((short) -215).put((byte) 200).putFloat(1013.25f)
+                .put(new byte[]{1, 0, 0, (byte) 0x80}).put((byte) 0b100).put(new byte[]{'A', 'B', 0, 0}).flip();
+        String expected = "{\"id\":\"ab01\",\"temperature\":-21.5,\"humidity\":200,\"pressure\":1013.25," +
+                "\"counter\":2147483649,\"alarm\":true,\"serial\":\"AB\"}";
+        assertThat(decoder.decode(response)).isEqualTo(expected);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(19);
+        direct.put((byte) 9).put(response.duplicate()).flip().position(1);
+        assertThat(decoder.decode(direct)).isEqualTo(expected);
+        assertThat(direct.position()).isEqualTo(1);
+    }
+
+    @Test
+    void givenShortResponse_whenDecode_thenThrows() {
+        TbTcpResponseDecoder decoder = decoder("BINARY", null, field("value", 2, "INT32", null));
+        assertThatThrownBy(() -> decoder.decode(new byte[5]))
+                .isInstanceOf(TbTcpResponseDecoder.DecodeException.class)
+                .hasMessageContaining("too short for field 'value'");
+    }
+
+    @Test
+    void givenDelimitedText_whenDecode_thenColumnsOfFirstLine() {
+        TbTcpResponseDecoder decoder = decoder("DELIMITED", ";", field("temperature", 1, "NUMBER", null),
+                field("voltage", 2, "NUMBER", 0.001), field("status", 0, "STRING", null),
+                field("on", 3, "BOOLEAN", null), field("spare", 4, null, null));
+
+        assertThat(decoder.decode(" \"OK\" ;21.5; 3300;yes;\r\nnext;line".getBytes(StandardCharsets.UTF_8)))
+                .isEqualTo("{\"temperature\":21.5,\"voltage\":3.3,\"status\":\"OK\",\"on\":true}");
+        assertThat(decoder.decode("OK;21;3300;0;7".getBytes(StandardCharsets.UTF_8)))
+                .isEqualTo("{\"temperature\":21,\"voltage\":3.3,\"status\":\"OK\",\"on\":false,\"spare\":7}");
+        assertThatThrownBy(() -> decoder.decode("OK;warm;1;1".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(TbTcpResponseDecoder.DecodeException.class);
+        assertThatThrownBy(() -> decoder.decode("OK;21".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(TbTcpResponseDecoder.DecodeException.class);
+    }
+
+    @Test
+    void givenInvalidField_whenCompile_thenThrows() {
+        assertThatThrownBy(() -> decoder("BINARY", null, field("serial", 0, "STRING", null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decoder("DELIMITED", ",", field("id", 0, "HEX", null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decoder("BINARY", null, field("status", 0, "STRING", 2.0)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void givenDecoder_whenClientWrapsResponse_thenTelemetryInsteadOfEnvelope() {
+        TbTcpClient client = new TbTcpClient("localhost", 0, false, null, 1000, 1000);
+        client.setResponseDecoder(decoder("DELIMITED", ",", field("value", 0, "NUMBER", null)));
+        assertThat(client.wrapResponse("42".getBytes(StandardCharsets.UTF_8), null)).isEqualTo("{\"value\":42}");
+    }
+
+    private static TbTcpResponseDecoder decoder(String format, String delimiter,
+            TbSendToTcpNodeConfiguration.DecoderFieldConfig... fields) {
+        var config = new TbSendToTcpNodeConfiguration.ResponseDecoderConfig();
+        config.setFormat(format);
+        config.setDelimiter(delimiter);
+        config.setFields(List.of(fields));
+        return TbTcpResponseDecoder.fromConfig(config);
+    }
+
+    private static TbSendToTcpNodeConfiguration.DecoderFieldConfig field(String key, int offset, String type, Double scale) {
+        var field = new TbSendToTcpNodeConfiguration.DecoderFieldConfig();
+        field.setKey(key);
+        field.setOffset(offset);
+        field.setType(type);
+        field.setScale(scale);
+        return field;
+    }
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.thingsboard.server.common.data.msg.TbMsgType.POST_TELEMETRY_REQUEST;
+
+class TbChangeFilterNodeTest {
+
+    final ObjectMapper mapper = new ObjectMapper();
+    final AtomicLong now = new AtomicLong(1000);
+    final DeviceId device = new DeviceId(UUID.randomUUID());
+
+    TbContext ctx;
+    TbChangeFilterNode node;
+
+    @BeforeEach
+    void setUp() {
+        ctx = mock(TbContext.class);
+        node = new TbChangeFilterNode();
+    }
+
+    @AfterEach
+    void tearDown() {
+        node.destroy();
+    }
+
+    @Test
+    void givenRepeatedValues_whenOnMsg_thenUnchanged() throws TbNodeException {
+        init(config -> {
+        });
+
+        assertRelation("{\"temperature\":22.5,\"status\":\"ON\",\"tags\":[1,{\"a\":2}]}", TbChangeFilterNode.CHANGED);
+        // Same values, other key order and number notation
+        assertRelation("{\"tags\":[1,{\"a\":2}],\"status\":\"ON\",\"temperature\":2.25e1}", TbChangeFilterNode.UNCHANGED);
+        assertRelation("{\"temperature\":22.5,\"status\":\"OFF\",\"tags\":[1,{\"a\":2}]}", TbChangeFilterNode.CHANGED);
+        assertRelation("{\"temperature\":22.5,\"status\":\"OFF\",\"tags\":[1,{\"a\":3}]}", TbChangeFilterNode.CHANGED);
+        assertRelation("{\"temperature\":\"22.5\"}", TbChangeFilterNode.CHANGED);
+    }
+
+    @Test
+    void givenDeadband_whenOnMsg_thenComparedWithLastForwardedValue() throws TbNodeException {
+        init(config -> {
+            config.setKeys(List.of("temperature", "humidity"));
+            config.setDeadband(1.0);
+            config.setKeyDeadbands(Map.of("humidity", 5.0));
+        });
+
+        assertRelation("{\"temperature\":20,\"humidity\":50,\"ts\":1}", TbChangeFilterNode.CHANGED);
+        assertRelation("{\"temperature\":20.6,\"humidity\":54,\"ts\":2}", TbChangeFilterNode.UNCHANGED);
+        // Drift is measured from 20, not from the suppressed 20.6
+        assertRelation("{\"temperature\":21.2,\"humidity\":54,\"ts\":3}", TbChangeFilterNode.CHANGED);
+        assertRelation("{\"temperature\":21.2,\"humidity\":56,\"ts\":4}", TbChangeFilterNode.UNCHANGED);
+        assertRelation("{\"temperature\":21.2,\"humidity\":60,\"ts\":5}", TbChangeFilterNode.CHANGED);
+    }
+
+    @Test
+    void givenEntryTtl_whenValueExpired_thenChanged() throws TbNodeException {
+        init(config -> config.setEntryTtl(60000L));
+
+        assertRelation("{\"temperature\":20}", TbChangeFilterNode.CHANGED);
+        now.addAndGet(59999);
+        assertRelation("{\"temperature\":20}", TbChangeFilterNode.UNCHANGED);
+        now.addAndGet(1);
+        assertRelation("{\"temperature\":20}", TbChangeFilterNode.CHANGED);
+        assertThat(node.cache.getExpirations()).isEqualTo(1);
+    }
+
+    @Test
+    void givenNoSelectedKeys_whenOnMsg_thenChanged() throws TbNodeException {
+        init(config -> config.setKeys(List.of("temperature")));
+
+        assertRelation("{\"humidity\":50}", TbChangeFilterNode.CHANGED);
+        assertRelation("{\"humidity\":50}", TbChangeFilterNode.CHANGED);
+        assertRelation("[1,2]", TbChangeFilterNode.CHANGED);
+    }
+
+    @Test
+    void givenMalformedData_whenOnMsg_thenChanged() throws TbNodeException {
+        init(config -> {
+        });
+
+        TbMsg msg = msg("{\"temperature\":");
+        node.onMsg(ctx, msg);
+        verify(ctx).tellNext(msg, TbChangeFilterNode.CHANGED);
+        verify(ctx, never()).tellFailure(eq(msg), any());
+    }
+
+    @Test
+    void givenMoreOriginatorsThanEntries_whenOnMsg_thenLeastRecentlyUsedEvicted() {
+        TbLastValueCache cache = new TbLastValueCache(2, 0, 1);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        assertThat(cache.update(first, sample(1.0), 0)).isTrue();
+        assertThat(cache.update(second, sample(1.0), 0)).isTrue();
+        assertThat(cache.update(first, sample(1.0), 0)).isFalse();
+        assertThat(cache.update(third, sample(1.0), 0)).isTrue();
+
+        assertThat(cache.update(first, sample(1.0), 0)).isFalse();
+        assertThat(cache.update(second, sample(1.0), 0)).isTrue();
+        assertThat(cache.getSize()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(2);
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(4);
+    }
+
+    @Test
+    void givenInvalidConfig_whenInit_thenThrows() {
+        var config = new TbChangeFilterNodeConfiguration().defaultConfiguration();
+        config.setKeyDeadbands(Map.of("temperature", -1.0));
+        assertThatThrownBy(() -> node.init(ctx, new TbNodeConfiguration(mapper.valueToTree(config))))
+                .isInstanceOf(TbNodeException.class);
+    }
+
+    private void init(Consumer<TbChangeFilterNodeConfiguration> customizer) throws TbNodeException {
+        var config = new TbChangeFilterNodeConfiguration().defaultConfiguration();
+        config.setJmxMetrics(false);
+        customizer.accept(config);
+        node.init(ctx, new TbNodeConfiguration(mapper.valueToTree(config)));
+        node.clock = now::get;
+    }
+
+    private void assertRelation(String data, String relation) {
+        TbMsg msg = msg(data);
+        node.onMsg(ctx, msg);
+        verify(ctx).tellNext(msg, relation);
+    }
+
+    private static TbLastValueCache.Sample sample(double value) {
+        var sample = new TbLastValueCache.Sample();
+        sample.addNumber(TbLastValueCache.hash(TbLastValueCache.HASH_SEED, "temperature"), value, 0.0);
+        return sample;
+    }
+
+    private TbMsg msg(String data) {
+        return TbMsg.newMsg()
+                .type(POST_TELEMETRY_REQUEST)
+                .originator(device)
+                .data(data)
+                .metaData(TbMsgMetaData.EMPTY)
+                .build();
+    }
+
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.thingsboard.server.common.data.msg.TbMsgType.POST_TELEMETRY_REQUEST;
+
+class TbKeyFilterNodeTest {
+
+    static final String DATA = "{\"temperature\":22.5,\"status\":\"ON\",\"sensor\":{\"values\":[1,{\"x\":7},3],\"id\":\"abc-12\"}}";
+
+    final ObjectMapper mapper = new ObjectMapper();
+
+    TbContext ctx;
+    TbKeyFilterNode node;
+
+    @BeforeEach
+    void setUp() {
+        ctx = mock(TbContext.class);
+        node = new TbKeyFilterNode();
+    }
+
+    @Test
+    void givenKeyOnly_whenOnMsg_thenChecksTopLevelKey() throws TbNodeException {
+        var config = new TbKeyFilterNodeConfiguration().defaultConfiguration();
+        config.setKey("values");
+        node.init(ctx, new TbNodeConfiguration(mapper.valueToTree(config)));
+
+        TbMsg msg = msg(DATA);
+        node.onMsg(ctx, msg);
+        verify(ctx).tellNext(msg, TbNodeConnectionType.FALSE);
+    }
+
+    @Test
+    void givenAllConditionsHold_whenOnMsg_thenTrue() throws TbNodeException {
+        init(true,
+                condition("temperature", "GT", "20"),
+                condition("status", "EQ", "ON"),
+                condition("/sensor/values/1/x", "LE", "7"),
+                condition("/sensor/id", "MATCHES", "[a-z]+-\\d+"),
+                condition("humidity", "NOT_EXISTS", null));
+
+        TbMsg msg = msg(DATA);
+        node.onMsg(ctx, msg);
+        verify(ctx).tellNext(msg, TbNodeConnectionType.TRUE);
+    }
+
+    @Test
+    void givenOneConditionFails_whenMatchAll_thenFalse() throws TbNodeException {
+        init(true, condition("temperature", "GT", "20"), condition("/sensor/values/2", "EQ", "4"));
+
+        TbMsg msg = msg(DATA);
+        node.onMsg(ctx, msg);
+        verify(ctx).tellNext(msg, TbNodeConnectionType.FALSE);
+    }
+
+    @Test
+    void givenOneConditionHolds_whenMatchAny_thenTrueWithoutReadingRest() throws TbNodeException {
+        init(false, condition("humidity", "EXISTS", null), condition("temperature", "EQ", "22.50"));
+
+        // Decided at the first field, the malformed tail is never parsed
+        TbMsg msg = msg("{\"temperature\":22.5, broken");
+        node.onMsg(ctx, msg);
+        verify(ctx).tellNext(msg, TbNodeConnectionType.TRUE);
+    }
+
+    @Test
+    void givenInvalidCondition_whenInit_thenThrows() {
+        var config = new TbKeyFilterNodeConfiguration().defaultConfiguration();
+        config.setConditions(List.of(condition("temperature", "GT", "warm")));
+        assertThatThrownBy(() -> node.init(ctx, new TbNodeConfiguration(mapper.valueToTree(config))))
+                .isInstanceOf(TbNodeException.class);
+    }
+
+    @Test
+    void givenPointer_whenParsePath_thenUnescaped() {
+        assertThat(TbKeyPredicate.parsePath("/a~1b/~0c/0")).containsExactly("a/b", "~c", "0");
+        assertThat(TbKeyPredicate.parsePath("a/b")).containsExactly("a/b");
+    }
+
+    private void init(boolean matchAll, TbKeyFilterNodeConfiguration.Condition... conditions) throws TbNodeException {
+        var config = new TbKeyFilterNodeConfiguration().defaultConfiguration();
+        config.setConditions(List.of(conditions));
+        config.setMatchAll(matchAll);
+        node.init(ctx, new TbNodeConfiguration(mapper.valueToTree(config)));
+    }
+
+    private static TbKeyFilterNodeConfiguration.Condition condition(String path, String operator, String value) {
+        var condition = new TbKeyFilterNodeConfiguration.Condition();
+        condition.setPath(path);
+        condition.setOperator(operator);
+        condition.setValue(value);
+        return condition;
+    }
+
+    private TbMsg msg(String data) {
+        return TbMsg.newMsg()
+                .type(POST_TELEMETRY_REQUEST)
+                .originator(new DeviceId(UUID.randomUUID()))
+                .data(data)
+                .metaData(TbMsgMetaData.EMPTY)
+                .build();
+    }
+
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.transform;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.thingsboard.server.common.data.msg.TbMsgType.POST_TELEMETRY_REQUEST;
+
+class TbAggregateTelemetryNodeTest {
+
+    final ObjectMapper mapper = new ObjectMapper();
+
+    DeviceId deviceId;
+    TbAggregateTelemetryNode node;
+    TbAggregateTelemetryNodeConfiguration config;
+    TbContext ctx;
+
+    @BeforeEach
+    void setUp() {
+        deviceId = new DeviceId(UUID.randomUUID());
+        ctx = mock(TbContext.class);
+        config = new TbAggregateTelemetryNodeConfiguration().defaultConfiguration();
+        node = new TbAggregateTelemetryNode();
+    }
+
+    @Test
+    void givenDefaultConfig_whenOnMsg_thenAllAggregatesInData() throws Exception {
+        node.init(ctx, new TbNodeConfiguration(mapper.valueToTree(config)));
+
+        TbMsg newMsg = process("{\"temperature1\":22.5,\"temperature2\":10.5,\"humidity\":40}", TbMsgMetaData.EMPTY);
+
+        JsonNode data = mapper.readTree(newMsg.getData());
+        assertThat(data.get("temperatureSum").asDouble()).isEqualTo(33.0);
+        assertThat(data.get("temperatureMin").asDouble()).isEqualTo(10.5);
+        assertThat(data.get("temperatureMax").asDouble()).isEqualTo(22.5);
+        assertThat(data.get("temperatureCount").asLong()).isEqualTo(2);
+        assertThat(data.get("temperatureMean").asDouble()).isEqualTo(16.5);
+        assertThat(data.has("humidity")).isFalse();
+    }
+
+    @Test
+    void givenSeveralGroups_whenOnMsg_thenEachGroupAggregatedInOnePass() throws Exception {
+        var regex = group("REGEX", "hum_\\d+", null, "humidity", List.of("MEAN", "VARIANCE"));
+        var keys = group("KEYS", null, List.of("a", "b"), "ab", List.of("SUM", "COUNT"));
+        var missing = group("PREFIX", "pressure", null, "pressure", List.of("SUM", "COUNT"));
+        config.setGroups(List.of(regex, keys, missing));
+        config.setDestination("BOTH");
+        node.init(ctx, new TbNodeConfiguration(mapper.valueToTree(config)));
+
+        TbMsgMetaData metaData = new TbMsgMetaData(Map.of("city", "NY"));
+        TbMsg newMsg = process("{\"hum_1\":2,\"hum_2\":4,\"hum_x\":100,\"a\":\"1.5\",\"b\":true,\"c\":7}", metaData);
+
+        JsonNode data = mapper.readTree(newMsg.getData());
+        assertThat(data.get("humidityMean").asDouble()).isEqualTo(3.0);
+        assertThat(data.get("humidityVariance").asDouble()).isCloseTo(1.0, within(1e-9));
+        assertThat(data.get("abSum").asDouble()).isEqualTo(2.5);
+        assertThat(data.get("abCount").asLong()).isEqualTo(2);
+        assertThat(data.get("pressureCount").asLong()).isZero();
+        assertThat(data.has("pressureSum")).isFalse();
+        assertThat(newMsg.getMetaData().getValue("city")).isEqualTo("NY");
+        assertThat(newMsg.getMetaData().getValue("abSum")).isEqualTo("2.5");
+        assertThat(newMsg.getMetaData().getValue("pressureCount")).isEqualTo("0");
+    }
+
+    @Test
+    void givenMetadataDestination_whenOnMsg_thenDataUnchanged() throws TbNodeException {
+        config.setDestination("METADATA");
+        node.init(ctx, new TbNodeConfiguration(mapper.valueToTree(config)));
+        String data = "{\"temperature\":5}";
+
+        TbMsg newMsg = process(data, TbMsgMetaData.EMPTY);
+
+        assertThat(newMsg.getData()).isEqualTo(data);
+        assertThat(newMsg.getMetaData().getValue("temperatureMax")).isEqualTo("5.0");
+    }
+
+    @Test
+    void givenNoMatchingKeys_whenOnMsg_thenTellFailure() throws TbNodeException {
+        node.init(ctx, new TbNodeConfiguration(mapper.valueToTree(config)));
+        var msg = TbMsg.newMsg()
+                .type(POST_TELEMETRY_REQUEST)
+                .originator(deviceId)
+                .data("{\"humidity\":40}")
+                .metaData(TbMsgMetaData.EMPTY)
+                .build();
+
+        node.onMsg(ctx, msg);
+
+        ArgumentCaptor<Exception> exceptionCaptor = ArgumentCaptor.forClass(Exception.class);
+        verify(ctx, never()).tellSuccess(any());
+        verify(ctx).tellFailure(any(), exceptionCaptor.capture());
+        assertThat(exceptionCaptor.getValue()).isInstanceOf(TbNodeException.class);
+    }
+
+    @Test
+    void givenInvalidConfig_whenInit_thenThrows() {
+        config.setGroups(List.of(group("REGEX", "(", null, "bad", List.of("SUM"))));
+        assertThatThrownBy(() -> node.init(ctx, new TbNodeConfiguration(mapper.valueToTree(config))))
+                .isInstanceOf(TbNodeException.class);
+
+        config.setGroups(List.of(group("PREFIX", "t", null, "t", List.of("MEDIAN"))));
+        assertThatThrownBy(() -> node.init(ctx, new TbNodeConfiguration(mapper.valueToTree(config))))
+                .isInstanceOf(TbNodeException.class);
+    }
+
+    private TbMsg process(String data, TbMsgMetaData metaData) {
+        var msg = TbMsg.newMsg()
+                .type(POST_TELEMETRY_REQUEST)
+                .originator(deviceId)
+                .data(data)
+                .metaData(metaData)
+                .build();
+        node.onMsg(ctx, msg);
+        ArgumentCaptor<TbMsg> newMsgCaptor = ArgumentCaptor.forClass(TbMsg.class);
+        verify(ctx).tellSuccess(newMsgCaptor.capture());
+        verify(ctx, never()).tellFailure(any(), any());
+        return newMsgCaptor.getValue();
+    }
+
+    private static TbAggregateTelemetryNodeConfiguration.AggregationGroup group(String matchType, String pattern, List<String> keys,
+                                                                              String outputKey, List<String> aggregates) {
+        var group = new TbAggregateTelemetryNodeConfiguration.AggregationGroup();
+        group.setMatchType(matchType);
+        group.setPattern(pattern);
+        group.setKeys(keys);
+        group.setOutputKey(outputKey);
+        group.setAggregates(aggregates);
+        return group;
+    }
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.transform;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.msg.TbNodeConnectionType;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.thingsboard.server.common.data.msg.TbMsgType.POST_TELEMETRY_REQUEST;
+
+class TbWindowAggregateNodeTest {
+
+    final ObjectMapper mapper = new ObjectMapper();
+    final AtomicLong now = new AtomicLong(1000);
+
+    DeviceId deviceA;
+    DeviceId deviceB;
+    TbWindowAggregateNode node;
+    TbWindowAggregateNodeConfiguration config;
+    TbContext ctx;
+
+    @BeforeEach
+    void setUp() {
+        deviceA = new DeviceId(UUID.randomUUID());
+        deviceB = new DeviceId(UUID.randomUUID());
+        ctx = mock(TbContext.class);
+        when(ctx.getSelfId()).thenReturn(new RuleNodeId(UUID.randomUUID()));
+        config = new TbWindowAggregateNodeConfiguration().defaultConfiguration();
+        node = new TbWindowAggregateNode();
+        node.clock = now::get;
+    }
+
+    @Test
+    void givenTumblingWindow_whenTick_thenOneAggregatePerOriginator() throws Exception {
+        init();
+        TbMsg first = msg(deviceA, "{\"temperature1\":20,\"temperature2\":30,\"humidity\":50}");
+        node.onMsg(ctx, first);
+        node.onMsg(ctx, msg(deviceA, "{\"temperature\":10}"));
+        node.onMsg(ctx, msg(deviceB, "{\"temperature\":5}"));
+        verify(ctx).ack(first);
+        verify(ctx, never()).enqueueForTellNext(any(), any(String.class));
+
+        now.set(60000);
+        tick();
+
+        List<TbMsg> emitted = emitted(2);
+        JsonNode a = mapper.readTree(emitted.stream().filter(m -> m.getOriginator() == deviceA).findFirst().orElseThrow().getData());
+        assertThat(a.get("temperatureSum").asDouble()).isEqualTo(60.0);
+        assertThat(a.get("temperatureMin").asDouble()).isEqualTo(10.0);
+        assertThat(a.get("temperatureMax").asDouble()).isEqualTo(30.0);
+        assertThat(a.get("temperatureCount").asLong()).isEqualTo(3);
+        assertThat(a.get("temperatureAvg").asDouble()).isEqualTo(20.0);
+        assertThat(emitted.get(0).getMetaData().getValue("windowStart")).isEqualTo("0");
+        assertThat(emitted.get(0).getMetaData().getValue("windowEnd")).isEqualTo("60000");
+        assertThat(node.state.size()).isZero();
+    }
+
+    @Test
+    void givenSlidingWindow_whenPanesClose_thenValueEmittedForEveryWindowItBelongsTo() throws Exception {
+        config.setWindowType("SLIDING");
+        config.setWindowSizeMs(3000);
+        config.setWindowSlideMs(1000);
+        init();
+        node.onMsg(ctx, msg(deviceA, "{\"temperature\":1}"));
+        now.set(2500);
+        node.onMsg(ctx, msg(deviceA, "{\"temperature\":2}"));
+        verify(ctx, times(1)).enqueueForTellNext(any(), eq(TbNodeConnectionType.SUCCESS));
+
+        now.set(5000);
+        tick();
+
+        List<TbMsg> emitted = emitted(4);
+        assertThat(emitted).extracting(m -> mapper.readTree(m.getData()).get("temperatureSum").asDouble())
+                .containsExactly(1.0, 3.0, 3.0, 2.0);
+        assertThat(node.state.size()).isZero();
+    }
+
+    @Test
+    void givenOpenWindow_whenDestroy_thenFlushed() throws Exception {
+        init();
+        node.onMsg(ctx, msg(deviceA, "{\"temperature\":7}"));
+
+        node.destroy();
+
+        JsonNode data = mapper.readTree(emitted(1).get(0).getData());
+        assertThat(data.get("temperatureSum").asDouble()).isEqualTo(7.0);
+    }
+
+    @Test
+    void givenOriginatorLimit_whenNewOriginator_thenTellFailure() throws TbNodeException {
+        config.setMaxOriginators(1);
+        init();
+        node.onMsg(ctx, msg(deviceA, "{\"temperature\":1}"));
+        TbMsg rejected = msg(deviceB, "{\"temperature\":1}");
+
+        node.onMsg(ctx, rejected);
+
+        verify(ctx).tellFailure(eq(rejected), any(TbNodeException.class));
+        verify(ctx, never()).ack(rejected);
+    }
+
+    @Test
+    void givenSlideNotDividingWindow_whenInit_thenThrows() {
+        config.setWindowType("SLIDING");
+        config.setWindowSizeMs(3000);
+        config.setWindowSlideMs(2000);
+        assertThatThrownBy(this::init).isInstanceOf(TbNodeException.class);
+    }
+
+    @Test
+    void givenPaneStateAboveArrayLimit_whenInit_thenThrows() {
+        config.setWindowType("SLIDING");
+        config.setWindowSizeMs(60000);
+        config.setWindowSlideMs(1);
+        config.setMaxOriginators(100000);
+        assertThatThrownBy(this::init).isInstanceOf(TbNodeException.class);
+    }
+
+    private void init() throws TbNodeException {
+        node.init(ctx, new TbNodeConfiguration(mapper.valueToTree(config)));
+    }
+
+    private void tick() {
+        ArgumentCaptor<TbMsg> tickCaptor = ArgumentCaptor.forClass(TbMsg.class);
+        verify(ctx, atLeastOnce()).tellSelf(tickCaptor.capture(), anyLong());
+        node.onMsg(ctx, tickCaptor.getValue());
+    }
+
+    private List<TbMsg> emitted(int count) {
+        ArgumentCaptor<TbMsg> captor = ArgumentCaptor.forClass(TbMsg.class);
+        verify(ctx, times(count)).enqueueForTellNext(captor.capture(), eq(TbNodeConnectionType.SUCCESS));
+        return captor.getAllValues();
+    }
+
+    private TbMsg msg(DeviceId originator, String data) {
+        return TbMsg.newMsg()
+                .type(POST_TELEMETRY_REQUEST)
+                .originator(originator)
+                .data(data)
+                .metaData(TbMsgMetaData.EMPTY)
+                .build();
+    }
+
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TbJsonFieldScannerTest {
+
+    @Test
+    void givenObject_whenContainsKey_thenOnlyTopLevelFieldsMatch() {
+        String data = "{\"a\":{\"temperature\":1},\"humidity\":[1,2],\"temperature\":null}";
+        assertThat(TbJsonFieldScanner.containsKey(data, "temperature")).isTrue();
+        assertThat(TbJsonFieldScanner.containsKey(data, "b")).isFalse();
+        assertThat(TbJsonFieldScanner.containsKey("[\"temperature\"]", "temperature")).isFalse();
+        assertThat(TbJsonFieldScanner.containsKey(data, null)).isFalse();
+    }
+
+    @Test
+    void givenMixedValues_whenSumByPrefix_thenConvertedLikeAsDouble() {
+        String data = "{\"t1\":1.5,\"t2\":\"2.5\",\"t3\":true,\"t4\":\"n/a\",\"t5\":{\"t6\":100},\"x\":10}";
+        TbJsonFieldScanner.PrefixSum sum = TbJsonFieldScanner.sumByPrefix(data, "t");
+        assertThat(sum.getCount()).isEqualTo(5);
+        assertThat(sum.getSum()).isEqualTo(5.0);
+    }
+
+    @Test
+    void givenVisitor_whenStopRequested_thenScanEnds() {
+        int[] visited = {0};
+        TbJsonFieldScanner.scanNumericFields("{\"a\":1,\"b\":2,\"c\":3}", new TbJsonFieldScanner.NumericFieldVisitor() {
+            @Override
+            public boolean test(String field) {
+                return true;
+            }
+
+            @Override
+            public boolean accept(String field, double value) {
+                visited[0]++;
+                return !"b".equals(field);
+            }
+        });
+        assertThat(visited[0]).isEqualTo(2);
+    }
+
+    @Test
+    void givenMalformedJson_whenScan_thenThrows() {
+        assertThatThrownBy(() -> TbJsonFieldScanner.sumByPrefix("{\"t1\":", "t"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2018-2025 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.node.util;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.thingsboard.server.common.data.msg.TbMsgType.POST_TELEMETRY_REQUEST;
+
+class TbMsgTemplateTest {
+
+    final TbMsg msg = TbMsg.newMsg()
+            .type(POST_TELEMETRY_REQUEST)
+            .originator(new DeviceId(UUID.randomUUID()))
+            .data("{\"port\":5025}")
+            .metaData(new TbMsgMetaData(Map.of("tcpHost", "10.0.0.1", "tcpPort", "5025")))
+            .build();
+
+    @Test
+    void givenLiteral_whenCompile_thenConstant() {
+        TbMsgTemplate template = TbMsgTemplate.compile("localhost");
+        assertThat(template.isConstant()).isTrue();
+        assertThat(template.resolve(msg)).isEqualTo("localhost");
+    }
+
+    @Test
+    void givenMetadataPlaceholders_whenResolve_thenSameAsProcessPattern() {
+        assertThat(TbMsgTemplate.compile("${tcpHost}").resolve(msg)).isEqualTo("10.0.0.1");
+        assertThat(TbMsgTemplate.compile("${tcpHost}").isConstant()).isFalse();
+        assertThat(TbMsgTemplate.compile("tcp://${tcpHost}:${tcpPort}/").resolve(msg))
+                .isEqualTo("tcp://10.0.0.1:5025/");
+    }
+
+    @Test
+    void givenMissingKey_whenResolve_thenPlaceholderKept() {
+        assertThat(TbMsgTemplate.compile("${missing}").resolve(msg)).isEqualTo("${missing}");
+        assertThat(TbMsgTemplate.compile("${tcpHost}-${missing}").resolve(msg)).isEqualTo("10.0.0.1-${missing}");
+        assertThat(TbMsgTemplate.compile("${unclosed").resolve(msg)).isEqualTo("${unclosed");
+    }
+
+    @Test
+    void givenDataPlaceholder_whenResolve_thenDelegated() {
+        TbMsgTemplate template = TbMsgTemplate.compile("$[port]");
+        assertThat(template.isConstant()).isFalse();
+        assertThat(template.resolve(msg)).isEqualTo("5025");
+    }
+
+}